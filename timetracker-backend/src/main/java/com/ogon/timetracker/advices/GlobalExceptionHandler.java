@@ -1,10 +1,13 @@
 package com.ogon.timetracker.advices;
 
 import com.ogon.timetracker.exceptions.InvalidEmailDomainException;
+import com.ogon.timetracker.exceptions.LoginThrottledException;
 import com.ogon.timetracker.exceptions.PasswordPolicyViolationException;
 import com.ogon.timetracker.exceptions.ResourceNotFoundException;
 import com.ogon.timetracker.exceptions.RuntimeConflictException;
+import com.ogon.timetracker.exceptions.ServiceBusyException;
 import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -40,6 +43,26 @@ public class GlobalExceptionHandler {
         return buildErrorResponseEntity(apiError);
     }
 
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponse<?>> handleServiceBusy(ServiceBusyException exception) {
+        ApiError apiError = ApiError.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .message(exception.getMessage())
+                .build();
+        return buildErrorResponseEntity(apiError);
+    }
+
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<ApiResponse<?>> handleLoginThrottled(LoginThrottledException exception) {
+        ApiError apiError = ApiError.builder()
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .message(exception.getMessage())
+                .build();
+        return ResponseEntity.status(apiError.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(new ApiResponse<>(apiError));
+    }
+
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<ApiResponse<?>> handleAuthenticationException(AuthenticationException ex) {
         ApiError apiError = ApiError.builder()
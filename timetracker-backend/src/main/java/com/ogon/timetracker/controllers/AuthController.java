@@ -5,24 +5,33 @@ import com.ogon.timetracker.dto.LoginRequestDTO;
 import com.ogon.timetracker.dto.LoginResponseDTO;
 import com.ogon.timetracker.dto.SignUpRequestDTO;
 import com.ogon.timetracker.dto.SignUpResponseDTO;
+import com.ogon.timetracker.security.LoginThrottleService;
 import com.ogon.timetracker.services.AuthService;
+import com.ogon.timetracker.services.JwtService;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
 
+    private static final String REFRESH_TOKEN_COOKIE = "refreshToken";
+
     private final AuthService authService;
+    private final LoginThrottleService loginThrottleService;
 
 
     @PostMapping("/register")
@@ -34,23 +43,72 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<LoginResponseDTO> login(@RequestBody LoginRequestDTO loginRequestDTO,
                                                   HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
-        LoginResponseDTO response = authService.authenticate(
-                loginRequestDTO.getEmail(),
-                loginRequestDTO.getPassword()
-        );
+        // Throttled attempts are rejected before any database lookup or bcrypt work
+        String clientIp = httpServletRequest.getRemoteAddr();
+        loginThrottleService.checkAllowed(loginRequestDTO.getEmail(), clientIp);
+
+        LoginResponseDTO response;
+        try {
+            response = authService.authenticate(
+                    loginRequestDTO.getEmail(),
+                    loginRequestDTO.getPassword()
+            );
+        } catch (BadCredentialsException e) {
+            loginThrottleService.recordFailure(loginRequestDTO.getEmail(), clientIp);
+            throw e;
+        }
+        loginThrottleService.recordSuccess(loginRequestDTO.getEmail());
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, refreshTokenCookie(response.getRefreshToken(), httpServletRequest).toString())
+                .body(response);
     }
+
     @PostMapping("/refresh")
     public ResponseEntity<LoginResponseDTO> refresh(HttpServletRequest request) {
-        String refreshToken = Arrays.stream(request.getCookies()).
-                filter(cookie -> "refreshToken".equals(cookie.getName()))
-                .findFirst()
-                .map(Cookie::getValue)
+        String refreshToken = readRefreshTokenCookie(request)
                 .orElseThrow(() -> new AuthenticationServiceException("Refresh token not found inside the Cookies"));
 
-        String accessToken = authService.refreshToken(refreshToken);
+        LoginResponseDTO response = authService.refreshToken(refreshToken);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, refreshTokenCookie(response.getRefreshToken(), request).toString())
+                .body(response);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, Object>> logout(HttpServletRequest request) {
+        readRefreshTokenCookie(request).ifPresent(authService::logout);
+
+        ResponseCookie cleared = ResponseCookie.from(REFRESH_TOKEN_COOKIE, "")
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .path("/api/auth")
+                .maxAge(0)
+                .build();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, cleared.toString())
+                .body(Map.of("message", "Logged out"));
+    }
+
+    private Optional<String> readRefreshTokenCookie(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return Optional.empty();
+        }
+        return Arrays.stream(request.getCookies())
+                .filter(cookie -> REFRESH_TOKEN_COOKIE.equals(cookie.getName()))
+                .findFirst()
+                .map(Cookie::getValue);
+    }
 
-        return ResponseEntity.ok(new LoginResponseDTO(accessToken, refreshToken, null,null));
+    // Rotation makes the previous cookie useless, so every issued token replaces it
+    private ResponseCookie refreshTokenCookie(String refreshToken, HttpServletRequest request) {
+        return ResponseCookie.from(REFRESH_TOKEN_COOKIE, refreshToken)
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .path("/api/auth")
+                .maxAge(JwtService.REFRESH_TOKEN_TTL)
+                .sameSite("Strict")
+                .build();
     }
 }
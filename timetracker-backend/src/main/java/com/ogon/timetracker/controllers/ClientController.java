@@ -13,6 +13,9 @@ import com.ogon.timetracker.repositories.ClientRepository;
 import com.ogon.timetracker.repositories.ProjectRepository;
 import com.ogon.timetracker.repositories.TaskTypeRepository;
 import com.ogon.timetracker.repositories.UserRepository;
+import com.ogon.timetracker.security.PrincipalCache;
+import com.ogon.timetracker.services.ReferenceDataCache;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -29,15 +32,21 @@ public class ClientController {
 
     private final TaskTypeRepository taskTypeRepository;
     private final ProjectRepository projectRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final PrincipalCache principalCache;
 
     public ClientController(ClientRepository clientRepository,
                             TaskTypeRepository taskTypeRepository,
                             ProjectRepository projectRepository,
-                            UserRepository userRepository) {
+                            UserRepository userRepository,
+                            ReferenceDataCache referenceDataCache,
+                            PrincipalCache principalCache) {
         this.clientRepository = clientRepository;
         this.taskTypeRepository = taskTypeRepository;
         this.projectRepository = projectRepository;
         this.userRepository = userRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.principalCache = principalCache;
     }
 
     // ===== ADD =====
@@ -60,6 +69,7 @@ public class ClientController {
         }
 
         clientRepository.save(req);
+        referenceDataCache.rebuild();
         return ResponseEntity.ok(Map.of("message", "Client added successfully"));
     }
 
@@ -83,6 +93,7 @@ public class ClientController {
         }
 
         clientRepository.delete(clientOpt.get());
+        referenceDataCache.rebuild();
         return ResponseEntity.ok(Map.of("message", "Client deleted successfully"));
     }
 
@@ -115,25 +126,25 @@ public class ClientController {
         }
 
         clientRepository.save(client);
+        referenceDataCache.rebuild();
         return ResponseEntity.ok(Map.of("message", "Client updated successfully"));
     }
 
     @GetMapping("/client/{clientCode}")
     public ResponseEntity<?> getClientByCode(@PathVariable String clientCode) {
 
-        ClientEntity client = clientRepository
-                .findByClientCd(clientCode.toUpperCase())
-                .orElse(null);
-
-        if (client == null) {
+        ReferenceDataCache.Snapshot referenceData = referenceDataCache.current();
+        String clientCd = clientCode.toUpperCase();
+        if (!referenceData.hasClient(clientCd)) {
             return ResponseEntity.badRequest()
                     .body(Map.of("message", "Client not found"));
         }
 
-        return ResponseEntity.ok(
+        ReferenceDataCache.Resource<List<String>> client = referenceData.client(clientCd);
+        return revalidated(client.etag()).body(
                 Map.of(
-                        "clientCode", client.getClientCd(),
-                        "clientName", client.getClientName()
+                        "clientCode", client.body().get(0),
+                        "clientName", client.body().get(1)
                 )
         );
     }
@@ -141,7 +152,15 @@ public class ClientController {
 
     @GetMapping("/client-codes")
     public ResponseEntity<?> getClientCodes() {
-        return ResponseEntity.ok(clientRepository.findAllClientCodes());
+        ReferenceDataCache.Resource<List<String>> clientCodes = referenceDataCache.current().clientCodes();
+        return revalidated(clientCodes.etag()).body(clientCodes.body());
+    }
+
+    // Browsers keep the copy but revalidate it; a matching If-None-Match is answered with 304
+    private static ResponseEntity.BodyBuilder revalidated(String etag) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag);
     }
 
 
@@ -180,6 +199,7 @@ public class ClientController {
         entity.setClient(client);
 
         taskTypeRepository.save(entity);
+        referenceDataCache.rebuild();
 
         return ResponseEntity.ok(Map.of("message", "Task Type added successfully"));
     }
@@ -207,6 +227,7 @@ public class ClientController {
         }
 
         taskTypeRepository.delete(task);
+        referenceDataCache.rebuild();
         return ResponseEntity.ok(Map.of("message", "Task Type deleted successfully"));
     }
 
@@ -242,6 +263,7 @@ public class ClientController {
 
         existing.setTaskName(req.getNewTaskType().trim());
         taskTypeRepository.save(existing);
+        referenceDataCache.rebuild();
 
         return ResponseEntity.ok(Map.of("message", "Task Type updated successfully"));
     }
@@ -251,16 +273,14 @@ public class ClientController {
     public ResponseEntity<List<String>> getTaskTypesByClient(
             @PathVariable String clientCode) {
 
-        ClientEntity client = clientRepository
-                .findByClientCd(clientCode.toUpperCase())
-                .orElseThrow(() ->
-                        new RuntimeException("Invalid Client Code"));
-
-        // ✅ USE REPOSITORY METHOD
-        List<String> taskNames =
-                taskTypeRepository.findTaskNamesByClient(client);
+        ReferenceDataCache.Snapshot referenceData = referenceDataCache.current();
+        String clientCd = clientCode.toUpperCase();
+        if (!referenceData.hasClient(clientCd)) {
+            throw new RuntimeException("Invalid Client Code");
+        }
 
-        return ResponseEntity.ok(taskNames); // 🔥 RETURN ARRAY ONLY
+        ReferenceDataCache.Resource<List<String>> taskNames = referenceData.taskTypes(clientCd);
+        return revalidated(taskNames.etag()).body(taskNames.body()); // 🔥 RETURN ARRAY ONLY
     }
 
     @PostMapping("/project/add")
@@ -290,6 +310,7 @@ public class ClientController {
         entity.setProjectName(req.getProject().trim());
         entity.setClient(client);
         projectRepository.save(entity);
+        referenceDataCache.rebuild();
 
         return ResponseEntity.ok(Map.of("message", "Project added successfully"));
     }
@@ -313,6 +334,7 @@ public class ClientController {
         }
 
         projectRepository.delete(project);
+        referenceDataCache.rebuild();
         return ResponseEntity.ok(Map.of("message", "Project deleted successfully"));
     }
 
@@ -340,17 +362,20 @@ public class ClientController {
 
         existing.setProjectName(req.getNewProject().trim());
         projectRepository.save(existing);
+        referenceDataCache.rebuild();
         return ResponseEntity.ok(Map.of("message", "Project updated successfully"));
     }
 
     @GetMapping("/projects/{clientCode}")
     public ResponseEntity<List<String>> getProjectsByClient(@PathVariable String clientCode) {
-        ClientEntity client = clientRepository
-                .findByClientCd(clientCode.toUpperCase())
-                .orElseThrow(() -> new RuntimeException("Invalid Client Code"));
+        ReferenceDataCache.Snapshot referenceData = referenceDataCache.current();
+        String clientCd = clientCode.toUpperCase();
+        if (!referenceData.hasClient(clientCd)) {
+            throw new RuntimeException("Invalid Client Code");
+        }
 
-        List<String> projects = projectRepository.findProjectNamesByClient(client);
-        return ResponseEntity.ok(projects);
+        ReferenceDataCache.Resource<List<String>> projects = referenceData.projects(clientCd);
+        return revalidated(projects.etag()).body(projects.body());
     }
 
     @PostMapping("/user-role")
@@ -391,6 +416,7 @@ public class ClientController {
 
         user.getRoles().add(role);
         userRepository.save(user);
+        principalCache.invalidate(user.getId());
 
         return ResponseEntity.ok(
                 Map.of("message", "Role added successfully")
@@ -0,0 +1,48 @@
+package com.ogon.timetracker.controllers;
+
+import com.ogon.timetracker.dto.DashboardDTO;
+import com.ogon.timetracker.security.CurrentUserResolver;
+import com.ogon.timetracker.services.DashboardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class DashboardController {
+
+    private static final long MAX_RANGE_DAYS = 366;
+
+    private final DashboardService dashboardService;
+    private final CurrentUserResolver currentUserResolver;
+
+    @GetMapping("/dashboard")
+    public ResponseEntity<Map<String, Object>> getDashboard(
+            @RequestParam(required = false) String email,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        if (endDate.isBefore(startDate) || ChronoUnit.DAYS.between(startDate, endDate) >= MAX_RANGE_DAYS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Date range must be between 1 and 366 days"));
+        }
+
+        Long userId = currentUserResolver.resolve(email);
+        DashboardDTO dashboard = dashboardService.build(userId, startDate, endDate);
+
+        // Per user and period: browsers may reuse it briefly, shared caches must not
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(60, TimeUnit.SECONDS).cachePrivate())
+                .body(Map.of("data", dashboard));
+    }
+}
@@ -1,21 +1,37 @@
 package com.ogon.timetracker.controllers;
 
 import com.ogon.timetracker.dto.AdminSummaryDTO;
+import com.ogon.timetracker.dto.RollupVerificationDTO;
+import com.ogon.timetracker.dto.TaskArchiveJobDTO;
 import com.ogon.timetracker.dto.TaskDTO;
+import com.ogon.timetracker.dto.TaskSaveResultDTO;
 import com.ogon.timetracker.entities.TaskEntity;
+import com.ogon.timetracker.entities.TicketEntity;
+import com.ogon.timetracker.enums.TaskTermKind;
 import com.ogon.timetracker.rendererer.TimeTrackerRenderer;
 import com.ogon.timetracker.repositories.ClientRepository;
 import com.ogon.timetracker.repositories.TaskRepository;
-import com.ogon.timetracker.repositories.UserRepository;
+import com.ogon.timetracker.security.CurrentUserResolver;
+import com.ogon.timetracker.services.TaskArchiveService;
+import com.ogon.timetracker.services.TaskRollupService;
 import com.ogon.timetracker.services.TaskService;
+import com.ogon.timetracker.services.TaskTermDictionary;
+import com.ogon.timetracker.services.TaskWriteService;
+import com.ogon.timetracker.services.TicketRegistryService;
+import com.ogon.timetracker.services.TicketSearchService;
+import com.ogon.timetracker.specifications.TaskSpecificationBuilder;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -28,18 +44,10 @@ import static com.ogon.timetracker.rendererer.TimeTrackerRenderer.findByEmailAdd
 public class TaskController {
     private final TaskRepository taskRepository;
     private final DateTimeFormatter dbFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-    private final DateTimeFormatter inputFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-    private LocalDate parseWorkDate(String value) {
-        if (value == null || value.isBlank()) {
-            return null;
-        }
-        try {
-            return LocalDate.parse(value, dbFormatter);
-        } catch (Exception ignored) {
-            return LocalDate.parse(value, inputFormatter);
-        }
-    }
+    // Longest range one rollup rebuild or verification may cover
+    @Value("${app.rollups.max-range-days:366}")
+    private int maxRollupRangeDays;
 
     @PostMapping("/tasks")
     public ResponseEntity<Map<String, String>> saveTasks(@RequestBody List<TaskDTO> tasks) {
@@ -50,8 +58,15 @@ public class TaskController {
         }
 
 //        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-        List<TaskEntity> validTasks = new ArrayList<>();
-        Long userId =0L;
+        for (TaskDTO dto : tasks) {
+            if (dto.getDate() != null && !dto.getDate().isEmpty() && !TimeTrackerRenderer.isWorkDate(dto.getDate())) {
+                return ResponseEntity
+                        .badRequest()
+                        .body(Map.of("error", "Invalid date: " + dto.getDate()));
+            }
+        }
+        List<TaskDTO> validTasks = new ArrayList<>();
+        Long userId = null;
         for (TaskDTO dto : tasks) {
             if (dto.getClient() != null && !dto.getClient().isEmpty()
                     && dto.getTicket() != null && !dto.getTicket().isEmpty()
@@ -61,25 +76,9 @@ public class TaskController {
                     && dto.getDate() != null && !dto.getDate().isEmpty()
                     && dto.getTicketDescription() !=null && !dto.getTicketDescription().isEmpty() ) {
                 ;
-                if(userId == 0) userId = userRepository.findByEmail(dto.getEmail()).get().getId();
-
-                TaskEntity entity = TaskEntity.builder()
-                        .userId(userId)
-                        .firstName(dto.getFirstName())
-                        .lastName(dto.getLastName())
-                        .client(dto.getClient().toUpperCase())
-                        .project(dto.getProject())
-                        .ticket(dto.getTicket())
-                        .category(dto.getCategory())
-                        .description(dto.getDescription())
-                        .billable(dto.getBillable())
-                        .hours(dto.getHours())
-                        .date(dto.getDate())
-                        .workDate(parseWorkDate(dto.getDate()))
-                        .ticketDescription(dto.getTicketDescription())
-                        .build();
-
-                validTasks.add(entity);
+                if (userId == null) userId = currentUserResolver.resolve(dto.getEmail());
+
+                validTasks.add(dto);
             }
         }
 
@@ -89,7 +88,7 @@ public class TaskController {
                     .body(Map.of("error", "No tasks to save. All fields are required."));
         }
 
-        taskRepository.saveAll(validTasks);
+        taskWriteService.saveTasks(userId, validTasks);
 
         return ResponseEntity.ok(Map.of(
                 "message", validTasks.size() + " task(s) saved successfully!"
@@ -104,178 +103,32 @@ public class TaskController {
             );
         }
 
-        List<TaskEntity> toInsert = new ArrayList<>();
-        List<TaskEntity> toUpdate = new ArrayList<>();
-        List<String> updateLogs = new ArrayList<>();
-        Long user_Id =0L;
-        for (Map<String, Object> dto : tasks) {
-
-            Long rowId = dto.get("rowId") != null
-                    ? Long.valueOf(dto.get("rowId").toString())
-                    : null;
-
-            String email = (String) dto.get("email");
-            if(user_Id == 0) user_Id = userRepository.findByEmail(email).get().getId();
-            String firstName = (String) dto.get("firstName");
-            String lastName = (String) dto.get("lastName");
-            String client = (String) dto.get("client");
-            String project = (String) dto.get("project");
-            String ticket = (String) dto.get("ticket");
-            String ticketDescription = (String) dto.get("ticketDescription");
-            String category = (String) dto.get("category");
-            String description = (String) dto.get("description");
-            String billable = (String) dto.get("billable");
-
-            Map<String, Object> hoursByDate = (Map<String, Object>) dto.get("hoursByDate");
-            if (hoursByDate == null || hoursByDate.isEmpty()) continue;
-
-            /* ===========================================================
-             * 1️⃣ EXISTING WEEKLY GROUP → UPDATE LOGIC
-             * =========================================================== */
-            if (rowId != null) {
-
-                List<TaskEntity> existingRows = taskRepository.findByRowId(rowId);
-
-                if (!existingRows.isEmpty()) {
-
-                    // 1. Detect static field changes
-                    TaskEntity ref = existingRows.get(0);
-                    boolean staticChanged =
-                            !Objects.equals(ref.getClient(), client) ||
-                                    !Objects.equals(ref.getProject(), project) ||
-                                    !Objects.equals(ref.getTicket(), ticket) ||
-                                    !Objects.equals(ref.getTicketDescription(), ticketDescription) ||
-                                    !Objects.equals(ref.getCategory(), category) ||
-                                    !Objects.equals(ref.getDescription(), description) ||
-                                    !Objects.equals(ref.getBillable(), billable);
-
-                    // 2. Update existing dates
-                    for (TaskEntity existing : existingRows) {
-                        boolean rowChanged = false; // ✅ NEW FLAG
-                        String date = existing.getDate();
-
-                        Object newHoursObj = hoursByDate.get(date);
-
-                        if (newHoursObj != null) {
-                            double newHours = Double.parseDouble(newHoursObj.toString());
-
-                            if (Double.compare(existing.getHours(), newHours) != 0) {
-                            existing.setHours(newHours);
-                            existing.setWorkDate(parseWorkDate(date));
-                            rowChanged = true;
-                            updateLogs.add("Updated hours | rowId=" + rowId + " date=" + date);
-                            }
-                        }
-                        // Update static fields IF changed
-                        if (staticChanged) {
-                            existing.setClient(client);
-                            existing.setProject(project);
-                            existing.setTicket(ticket);
-                            existing.setTicketDescription(ticketDescription);
-                            existing.setCategory(category);
-                            existing.setDescription(description);
-                            existing.setBillable(billable);
-                            existing.setUserId(user_Id);
-                            existing.setFirstName(firstName);
-                            existing.setLastName(lastName);
-                            existing.setWorkDate(parseWorkDate(date));
-                            rowChanged = true;
-                            updateLogs.add("Updated fields | rowId=" + rowId + " date=" + date);
-                        }
-
-                        if (rowChanged) {
-                            toUpdate.add(existing);
-                            taskRepository.save(existing);
-                        }
-                    }
-
-                    // 3. Insert NEW DATES not present in DB
-                    Set<String> existingDates =
-                            existingRows.stream().map(TaskEntity::getDate).collect(Collectors.toSet());
-
-                    for (Map.Entry<String, Object> e : hoursByDate.entrySet()) {
-                        String date = e.getKey();
-                        Object hoursObj = e.getValue();
-
-                        if (!existingDates.contains(date)) {
-                            double hours = Double.parseDouble(hoursObj.toString());
-
-                            TaskEntity newRow = TaskEntity.builder()
-                                    .rowId(rowId)
-                                    .userId(user_Id)
-                                    .firstName(firstName)
-                                    .lastName(lastName)
-                                    .client(client)
-                                    .project(project)
-                                    .ticket(ticket)
-                                    .ticketDescription(ticketDescription)
-                                    .category(category)
-                                    .description(description)
-                                    .billable(billable)
-                                    .hours(hours)
-                                    .date(date)
-                                    .workDate(parseWorkDate(date))
-                                    .build();
-
-                            toInsert.add(newRow);
-                            taskRepository.save(newRow);
-                            updateLogs.add("Inserted NEW date | rowId=" + rowId + " date=" + date);
-                        }
+        for (Map<String, Object> task : tasks) {
+            if (task.get("hoursByDate") instanceof Map<?, ?> hoursByDate) {
+                for (Object date : hoursByDate.keySet()) {
+                    if (!TimeTrackerRenderer.isWorkDate((String) date)) {
+                        return ResponseEntity.badRequest().body(Map.of("error", "Invalid date: " + date));
                     }
-
-                    continue; // Done with update block
                 }
             }
-
-            /* ===========================================================
-             * 2️⃣ NEW WEEKLY ENTRY → INSERT LOGIC
-             * =========================================================== */
-
-            rowId = taskRepository.getNextRowId();
-
-            for (Map.Entry<String, Object> e : hoursByDate.entrySet()) {
-                Object hoursObj = e.getValue();
-                if (hoursObj == null || hoursObj.toString().isBlank()) continue;
-
-                double hours = Double.parseDouble(hoursObj.toString());
-                String date = e.getKey();
-
-                TaskEntity entity = TaskEntity.builder()
-                        .rowId(rowId)
-                        .userId(user_Id)
-                        .firstName(firstName)
-                        .lastName(lastName)
-                        .client(client)
-                        .project(project)
-                        .ticket(ticket)
-                        .ticketDescription(ticketDescription)
-                        .category(category)
-                        .description(description)
-                        .billable(billable)
-                        .hours(hours)
-                        .date(date)
-                        .workDate(parseWorkDate(date))
-                        .build();
-
-                toInsert.add(entity);
-                taskRepository.save(entity);
-                updateLogs.add("Inserted NEW weekly row | rowId=" + rowId + " date=" + date);
-            }
         }
 
-        // SAVE ALL
-        /*if (!toInsert.isEmpty()) taskRepository.saveAll(toInsert);
-        if (!toUpdate.isEmpty()) taskRepository.saveAll(toUpdate);*/
+        String email = (String) tasks.get(0).get("email");
+        Long user_Id = currentUserResolver.resolve(email);
+
+        TaskSaveResultDTO result = taskWriteService.saveWeeklyRows(user_Id, tasks);
+        int inserted = result.getInserted();
+        int updated = result.getUpdated();
 
         String message;
 
-        if (!toInsert.isEmpty() && toUpdate.isEmpty()) {
+        if (inserted > 0 && updated == 0) {
             message = "Task(s) saved successfully";
         }
-        else if (toInsert.isEmpty() && !toUpdate.isEmpty()) {
+        else if (inserted == 0 && updated > 0) {
             message = "Task(s) updated successfully";
         }
-        else if (!toInsert.isEmpty() && !toUpdate.isEmpty()) {
+        else if (inserted > 0 && updated > 0) {
             message = "Task(s) saved and updated successfully";
         }
         else {
@@ -284,9 +137,9 @@ public class TaskController {
 
         return ResponseEntity.ok(
                 Map.of(
-                        "inserted", toInsert.size(),
-                        "updated", toUpdate.size(),
-                        "updateLogs", updateLogs,
+                        "inserted", inserted,
+                        "updated", updated,
+                        "updateLogs", result.getUpdateLogs(),
                         "message", message
                 )
         );
@@ -295,16 +148,22 @@ public class TaskController {
 
 
     private final TaskService taskService; // instance of TaskService
-    private final UserRepository userRepository;
+    private final TaskWriteService taskWriteService;
+    private final TaskRollupService taskRollupService;
+    private final TaskArchiveService taskArchiveService;
+    private final CurrentUserResolver currentUserResolver;
     private final ClientRepository clientRepository;
+    private final TicketRegistryService ticketRegistryService;
+    private final TicketSearchService ticketSearchService;
+    private final TaskTermDictionary taskTermDictionary;
 
     @GetMapping("/effort-entry-horizon")
     public  ResponseEntity<Map<String, Object>> getEffortEntries(
-            @RequestParam String email,
+            @RequestParam(required = false) String email,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
-        Long user_Id =userRepository.findByEmail(email).get().getId();
+        Long user_Id = currentUserResolver.resolve(email);
         List<TaskDTO> results =  taskService.getMergedEffortsByDate(user_Id, startDate, endDate);
 
         Map<String, Object> response = new HashMap<>();
@@ -326,15 +185,12 @@ public class TaskController {
         }
 
         String normalizedTicket = ticket.trim();
-        boolean exists = taskRepository.countByTicket(normalizedTicket) > 0;
-        String ticketDescription = taskRepository
-                .findLatestTicketDescriptionByTicket(normalizedTicket)
-                .orElse("");
+        Optional<TicketEntity> registered = ticketRegistryService.find(normalizedTicket);
 
         return ResponseEntity.ok(Map.of(
                 "ticket", normalizedTicket,
-                "exists", exists,
-                "ticketDescription", ticketDescription
+                "exists", registered.isPresent(),
+                "ticketDescription", registered.map(TicketEntity::getDescription).orElse("")
         ));
     }
 
@@ -353,35 +209,52 @@ public class TaskController {
         String normalizedTicket = ticket.trim();
         String normalizedDescription = ticketDescription.trim();
 
-        List<TaskEntity> ticketRows = taskRepository.findAllByTicket(normalizedTicket);
-        if (ticketRows.isEmpty()) {
+        if (!ticketRegistryService.updateDescription(normalizedTicket, normalizedDescription)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", "Ticket not found"));
         }
 
-        ticketRows.forEach(row -> row.setTicketDescription(normalizedDescription));
-        taskRepository.saveAll(ticketRows);
-
         return ResponseEntity.ok(Map.of(
                 "message", "Ticket description updated",
                 "ticket", normalizedTicket,
-                "updatedRows", ticketRows.size()
+                "updatedRows", 1
         ));
     }
 
 
 
+    @GetMapping("/tickets/suggest")
+    public ResponseEntity<Map<String, Object>> suggestTickets(
+            @RequestParam(required = false) String client,
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ticket prefix is required"));
+        }
+        return ResponseEntity.ok(Map.of("tickets", ticketSearchService.suggest(client, prefix, limit)));
+    }
+
+    // Resolves every ticket of a week at once, instead of one GET /tickets/description per cell
+    @PostMapping("/tickets/descriptions")
+    public ResponseEntity<Map<String, Object>> getTicketDescriptions(@RequestBody List<String> tickets) {
+        if (tickets == null || tickets.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ticket list cannot be empty"));
+        }
+        if (tickets.size() > TicketSearchService.MAX_LOOKUP) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "At most " + TicketSearchService.MAX_LOOKUP + " tickets can be looked up at once"));
+        }
+        return ResponseEntity.ok(Map.of("tickets", ticketSearchService.lookup(tickets)));
+    }
+
     @GetMapping("/tasks/summary-by-range")
     public ResponseEntity<Map<String, Object>> getSummary(
-            @RequestParam String email,
+            @RequestParam(required = false) String email,
             @RequestParam String startDate,
             @RequestParam String endDate,
             @RequestParam(required = false) String client,
             @RequestParam(required = false) String project
     ) {
-        if (email == null || email.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Email is required"));
-        }
         if (startDate == null || startDate.isEmpty() || endDate == null || endDate.isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Start date and end date are required"));
         }
@@ -395,43 +268,31 @@ public class TaskController {
         LocalDate startDt = LocalDate.parse(startDate, dbFormatter);
         LocalDate endDt= LocalDate.parse(endDate, dbFormatter);
 
-        Long user_Id = userRepository.findByEmail(email).get().getId();
-        // Fetch tasks from DB between startDb and endDb
-        List<TaskEntity> tasks = taskRepository.findByUserIdAndDateBetweenString(
-                user_Id,
-                startDt,
-                endDt
+        Long user_Id = currentUserResolver.resolve(email);
+        // Fetch only the user's matching tasks between startDt and endDt
+        List<TaskEntity> tasks = taskRepository.findAll(
+                TaskSpecificationBuilder.create()
+                        .user(user_Id)
+                        .workDateBetween(startDt, endDt)
+                        .clients(taskTermDictionary.matching(TaskTermKind.CLIENT, client))
+                        .projects(taskTermDictionary.matching(TaskTermKind.PROJECT, project))
+                        .build()
         );
 
-        if (client != null && !client.isBlank() && !"all".equalsIgnoreCase(client.trim())) {
-            String normalizedClient = client.trim();
-            tasks = tasks.stream()
-                    .filter(t -> normalizedClient.equalsIgnoreCase(
-                            Objects.toString(t.getClient(), "").trim()
-                    ))
-                    .collect(Collectors.toList());
-        }
-
-        if (project != null && !project.isBlank() && !"all".equalsIgnoreCase(project.trim())) {
-            String normalizedProject = project.trim();
-            tasks = tasks.stream()
-                    .filter(t -> normalizedProject.equalsIgnoreCase(
-                            Objects.toString(t.getProject(), "").trim()
-                    ))
-                    .collect(Collectors.toList());
-        }
-
-        // Convert TaskEntity -> TaskDTO
+        // Convert TaskEntity -> TaskDTO, showing each ticket's current description
+        Map<String, String> ticketDescriptions = ticketRegistryService.descriptions(
+                tasks.stream().map(TaskEntity::getTicket).toList());
         List<TaskDTO> result = tasks.stream()
                 .map(t -> TaskDTO.builder()
                         .id(t.getId())
-                        .client(t.getClient())
-                        .project(t.getProject())
+                        .client(taskTermDictionary.decode(t.getClientId()))
+                        .project(taskTermDictionary.decode(t.getProjectId()))
                         .ticket(t.getTicket())
-                        .ticketDescription(t.getTicketDescription())
-                        .category(t.getCategory())
+                        .ticketDescription(ticketDescriptions.getOrDefault(
+                                TicketEntity.keyOf(t.getTicket()), t.getTicketDescription()))
+                        .category(taskTermDictionary.decode(t.getCategoryId()))
                         .description(t.getDescription())
-                        .billable(t.getBillable())
+                        .billable(TimeTrackerRenderer.toBillableLabel(t.getBillable()))
                         .hours(t.getHours())
                         .date(t.getDate())
                         .build())
@@ -453,6 +314,10 @@ public class TaskController {
             @PathVariable Long id,
             @RequestBody TaskDTO taskDTO
     ) {
+        if (taskDTO.getDate() != null && !taskDTO.getDate().isBlank() && !TimeTrackerRenderer.isWorkDate(taskDTO.getDate())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid date: " + taskDTO.getDate()));
+        }
+
         Optional<TaskEntity> optionalTask = taskRepository.findById(id);
         if (optionalTask.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -466,13 +331,13 @@ public class TaskController {
 
         boolean isChanged = false;
 
-        if (!Objects.equals(task.getClient(), taskDTO.getClient())) isChanged = true;
-        if (!Objects.equals(task.getProject(), taskDTO.getProject())) isChanged = true;
+        if (!Objects.equals(taskTermDictionary.decode(task.getClientId()), taskDTO.getClient())) isChanged = true;
+        if (!Objects.equals(taskTermDictionary.decode(task.getProjectId()), taskDTO.getProject())) isChanged = true;
         if (!Objects.equals(task.getTicket(), taskDTO.getTicket())) isChanged = true;
         if (!Objects.equals(task.getTicketDescription(), taskDTO.getTicketDescription())) isChanged = true;
-        if (!Objects.equals(task.getCategory(), taskDTO.getCategory())) isChanged = true;
+        if (!Objects.equals(taskTermDictionary.decode(task.getCategoryId()), taskDTO.getCategory())) isChanged = true;
         if (!Objects.equals(task.getDescription(), taskDTO.getDescription())) isChanged = true;
-        if (!Objects.equals(task.getBillable(), taskDTO.getBillable())) isChanged = true;
+        if (!Objects.equals(TimeTrackerRenderer.toBillableLabel(task.getBillable()), taskDTO.getBillable())) isChanged = true;
         if (!Objects.equals(task.getHours(), taskDTO.getHours())) isChanged = true;
         if (!Objects.equals(task.getDate(), taskDTO.getDate())) isChanged = true;
 
@@ -482,34 +347,8 @@ public class TaskController {
         }
         else {
 
-            // Update fields from DTO
-            task.setClient(taskDTO.getClient().toUpperCase());
-            task.setProject(taskDTO.getProject());
-            task.setTicket(taskDTO.getTicket());
-            task.setTicketDescription(taskDTO.getTicketDescription());
-            task.setCategory(taskDTO.getCategory());
-            task.setDescription(taskDTO.getDescription());
-            task.setBillable(taskDTO.getBillable());
-            task.setHours(taskDTO.getHours());
-            task.setDate(taskDTO.getDate());
-            task.setWorkDate(parseWorkDate(taskDTO.getDate()));
-
-            // Save updated task
-            TaskEntity updatedTask = taskRepository.save(task);
-
-            // Convert to DTO to return
-            TaskDTO updatedDTO = TaskDTO.builder()
-                    .id(updatedTask.getId())
-                    .client(updatedTask.getClient())
-                    .project(updatedTask.getProject())
-                    .ticket(updatedTask.getTicket())
-                    .ticketDescription(updatedTask.getTicketDescription())
-                    .category(updatedTask.getCategory())
-                    .description(updatedTask.getDescription())
-                    .billable(updatedTask.getBillable())
-                    .hours(updatedTask.getHours())
-                    .date(updatedTask.getDate())
-                    .build();
+            // Update fields and the affected daily rollups in one transaction
+            TaskDTO updatedDTO = taskWriteService.updateTask(task.getId(), taskDTO);
 
             return ResponseEntity.ok(Map.of("data", updatedDTO));}
     }
@@ -540,8 +379,6 @@ public class TaskController {
         LocalDate startDt = LocalDate.parse(startDate, dbFormatter);
         LocalDate endDt   = LocalDate.parse(endDate, dbFormatter);
 
-        List<TaskEntity> tasks = new ArrayList<>();
-
         boolean shouldCheckClient = "client".equalsIgnoreCase(searchBy) || "both".equalsIgnoreCase(searchBy);
         boolean shouldCheckEmail = "email".equalsIgnoreCase(searchBy) || "both".equalsIgnoreCase(searchBy);
 
@@ -559,7 +396,7 @@ public class TaskController {
         List<Long> userIds = new ArrayList<>();
         boolean emailExists = true;
         if (shouldCheckEmail) {
-            userIds = taskRepository.findUserIdsByEmailIn(
+            userIds = currentUserResolver.resolveIds(
                     emails == null ? List.of() : emails
             );
             emailExists = !userIds.isEmpty();
@@ -578,29 +415,116 @@ public class TaskController {
                     .body(Map.of("error", "Entered user email not found"));
         }
 
-        // ===== Fetch Data =====
+        // ===== Aggregate in the database =====
+        TaskSpecificationBuilder filter = TaskSpecificationBuilder.create()
+                .workDateBetween(startDt, endDt);
         if ("client".equalsIgnoreCase(searchBy)) {
-
-            tasks = taskRepository.getSummaryByClientAndDateRange(
-                    client, startDt, endDt
-            );
-
+            filter.clients(taskTermDictionary.matching(TaskTermKind.CLIENT, client));
         } else if ("email".equalsIgnoreCase(searchBy)) {
-            tasks = taskRepository.findByUserIdsAndDateBetweenString(
-                    userIds, startDt, endDt
-            );
-
+            filter.users(userIds);
         } else if ("both".equalsIgnoreCase(searchBy)) {
-            tasks = taskRepository.getSummaryByClientAndUserIdsAndDateRange(
-                    client, userIds, startDt, endDt
-            );
+            filter.clients(taskTermDictionary.matching(TaskTermKind.CLIENT, client)).users(userIds);
+        } else {
+            return ResponseEntity.ok(Map.of("data", List.of()));
         }
-        List<AdminSummaryDTO> summary = buildSummaryData(tasks, false);
+        List<AdminSummaryDTO> summary = taskRepository.summarize(filter, false);
 
 
         return ResponseEntity.ok(Map.of("data", summary));
     }
 
+    @Secured("ROLE_ADMIN")
+    @PostMapping("admin-panel/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRollups(@RequestBody Map<String, String> payload) {
+        String startDate = payload.get("startDate");
+        String endDate = payload.get("endDate");
+        String rangeError = rollupRangeError(startDate, endDate);
+        if (rangeError != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", rangeError));
+        }
+
+        LocalDate start = LocalDate.parse(startDate, dbFormatter);
+        if (taskArchiveService.isArchived(start)) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "Rollups through " + taskArchiveService.getArchivedThrough() + " are archived and cannot be rebuilt"));
+        }
+
+        int rows = taskRollupService.rebuild(start, LocalDate.parse(endDate, dbFormatter));
+        return ResponseEntity.ok(Map.of(
+                "message", "Rollups rebuilt",
+                "rollupRows", rows
+        ));
+    }
+
+    @Secured("ROLE_ADMIN")
+    @GetMapping("admin-panel/rollups/verify")
+    public ResponseEntity<Map<String, Object>> verifyRollups(
+            @RequestParam String startDate,
+            @RequestParam String endDate
+    ) {
+        String rangeError = rollupRangeError(startDate, endDate);
+        if (rangeError != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", rangeError));
+        }
+
+        LocalDate start = LocalDate.parse(startDate, dbFormatter);
+        if (taskArchiveService.isArchived(start)) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "Task cells through " + taskArchiveService.getArchivedThrough() + " are archived and cannot be verified"));
+        }
+
+        RollupVerificationDTO report = taskRollupService.verify(start, LocalDate.parse(endDate, dbFormatter));
+        return ResponseEntity.ok(Map.of("data", report));
+    }
+
+    // Null when both dates are dd-MM-yyyy, in order and no more than app.rollups.max-range-days apart
+    private String rollupRangeError(String startDate, String endDate) {
+        if (startDate == null || endDate == null) {
+            return "Start date and end date are required";
+        }
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(startDate, dbFormatter);
+            end = LocalDate.parse(endDate, dbFormatter);
+        } catch (DateTimeParseException e) {
+            return "Dates must be in dd-MM-yyyy format";
+        }
+        if (end.isBefore(start)) {
+            return "End date must not be before start date";
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxRollupRangeDays) {
+            return "The range cannot span more than " + maxRollupRangeDays + " days";
+        }
+        return null;
+    }
+
+    // Starts moving the task cells of a closed year, and of the years before it, into the archive table
+    @Secured("ROLE_ADMIN")
+    @PostMapping("admin-panel/tasks/archive")
+    public ResponseEntity<Map<String, Object>> archiveTasks(@RequestBody Map<String, String> payload) {
+        String year = payload.get("year");
+        if (year == null || !year.matches("\\d{4}")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Year is required"));
+        }
+
+        try {
+            TaskArchiveJobDTO job = taskArchiveService.startArchive(Integer.parseInt(year));
+            return ResponseEntity.accepted().body(Map.of(
+                    "message", "Task archiving started",
+                    "data", job
+            ));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Secured("ROLE_ADMIN")
+    @GetMapping("admin-panel/tasks/archive")
+    public ResponseEntity<Map<String, Object>> getArchiveJob() {
+        return ResponseEntity.ok(Map.of("data", taskArchiveService.getJob()));
+    }
+
     @PostMapping("tasks/summary-consolidated")
     public ResponseEntity<Map<String, Object>> getSummaryConsolidated(
             @RequestBody Map<String, Object> payload
@@ -612,95 +536,31 @@ public class TaskController {
         String endDate = (String) payload.get("endDate");
         Boolean includeDates = (Boolean) payload.getOrDefault("includeDates", false);
 
-        if (email == null || email.isBlank() || startDate == null || endDate == null) {
+        if (startDate == null || endDate == null) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid request"));
         }
 
         LocalDate startDt = LocalDate.parse(startDate, dbFormatter);
         LocalDate endDt = LocalDate.parse(endDate, dbFormatter);
 
-        List<Long> userIds = taskRepository.findUserIdsByEmailIn(List.of(email));
+        List<Long> userIds = email == null || email.isBlank()
+                ? List.of(currentUserResolver.currentUserId())
+                : currentUserResolver.resolveIds(List.of(email));
         if (userIds.isEmpty()) {
             return ResponseEntity.ok(Map.of("data", List.of()));
         }
 
-        List<TaskEntity> tasks = taskRepository.findByUserIdsAndDateBetweenString(
-                userIds, startDt, endDt
+        List<AdminSummaryDTO> summary = taskRepository.summarize(
+                TaskSpecificationBuilder.create()
+                        .users(userIds)
+                        .workDateBetween(startDt, endDt)
+                        .clients(taskTermDictionary.matching(TaskTermKind.CLIENT, client))
+                        .projects(taskTermDictionary.matching(TaskTermKind.PROJECT, project)),
+                Boolean.TRUE.equals(includeDates)
         );
-
-        if (client != null && !client.isBlank() && !"all".equalsIgnoreCase(client.trim())) {
-            String normalizedClient = client.trim();
-            tasks = tasks.stream()
-                    .filter(t -> normalizedClient.equalsIgnoreCase(
-                            Objects.toString(t.getClient(), "").trim()
-                    ))
-                    .collect(Collectors.toList());
-        }
-
-        if (project != null && !project.isBlank() && !"all".equalsIgnoreCase(project.trim())) {
-            String normalizedProject = project.trim();
-            tasks = tasks.stream()
-                    .filter(t -> normalizedProject.equalsIgnoreCase(
-                            Objects.toString(t.getProject(), "").trim()
-                    ))
-                    .collect(Collectors.toList());
-        }
-
-        List<AdminSummaryDTO> summary = buildSummaryData(tasks, Boolean.TRUE.equals(includeDates));
         return ResponseEntity.ok(Map.of("data", summary));
     }
 
-    private List<AdminSummaryDTO> buildSummaryData(List<TaskEntity> tasks, boolean includeDates) {
-
-        Map<String, AdminSummaryDTO> map = new LinkedHashMap<>();
-
-        for (TaskEntity task : tasks) {
-
-            if (task == null || task.getTicket() == null) continue;
-
-            String key = String.join("||",
-                    Objects.toString(task.getClient(), ""),
-                    Objects.toString(task.getProject(), ""),
-                    Objects.toString(task.getTicket(), ""),
-                    Objects.toString(task.getTicketDescription(), "")
-            );
-
-            AdminSummaryDTO summary = map.get(key);
-
-            if (summary == null) {
-                summary = AdminSummaryDTO.builder()
-                        .client(task.getClient())
-                        .project(task.getProject())
-                        .ticket(task.getTicket())
-                        .ticketDescription(task.getTicketDescription())
-                        .billableHours(0)
-                        .nonBillableHours(0)
-                        .descriptions(new HashSet<>())
-                        .effortDates(includeDates ? new HashSet<>() : null)
-                        .build();
-
-                map.put(key, summary);
-            }
-
-            double hours = task.getHours() != null ? task.getHours() : 0;
-
-            if ("Yes".equalsIgnoreCase(task.getBillable())) {
-                summary.setBillableHours(summary.getBillableHours() + hours);
-            } else {
-                summary.setNonBillableHours(summary.getNonBillableHours() + hours);
-            }
-
-            if (task.getDescription() != null && !task.getDescription().isBlank()) {
-                summary.getDescriptions().add(task.getDescription().trim());
-            }
-
-            if (includeDates && task.getDate() != null && !task.getDate().isBlank()) {
-                summary.getEffortDates().add(task.getDate().trim());
-            }
-        }
-
-        return new ArrayList<>(map.values());
-    }
 
 
 
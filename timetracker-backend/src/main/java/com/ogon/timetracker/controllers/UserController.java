@@ -3,14 +3,17 @@ package com.ogon.timetracker.controllers;
 
 import com.ogon.timetracker.entities.User;
 import com.ogon.timetracker.repositories.UserRepository;
+import com.ogon.timetracker.security.PrincipalCache;
 import com.ogon.timetracker.services.EmailService;
+import com.ogon.timetracker.services.OtpStore;
+import com.ogon.timetracker.services.PasswordHashingExecutor;
 import com.ogon.timetracker.services.PasswordHistoryService;
 import com.ogon.timetracker.services.PasswordPolicyService;
+import com.ogon.timetracker.services.RefreshTokenService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -30,11 +33,13 @@ public class UserController {
     @Autowired
     private EmailService emailService; // Your service to send emails
 
-    private Map<String, String> otpStore = new HashMap<>(); // store OTP temporarily
+    private final OtpStore otpStore; // expiring OTPs with attempt limits
 
-    private final PasswordEncoder passwordEncoder ;
+    private final PasswordHashingExecutor passwordHashingExecutor;
     private final PasswordPolicyService passwordPolicyService;
     private final PasswordHistoryService passwordHistoryService;
+    private final PrincipalCache principalCache;
+    private final RefreshTokenService refreshTokenService;
 
 
     @GetMapping("/getuser/{email}")
@@ -63,7 +68,7 @@ public class UserController {
 
         if (user != null) {
             String otp = String.valueOf((int) (Math.random() * 900000) + 100000); // 6-digit OTP
-            otpStore.put(email, otp);
+            otpStore.save(email, otp);
 
             // Send email
             emailService.sendOtp(email, otp);
@@ -87,9 +92,7 @@ public class UserController {
         String newPassword = request.get("newPassword");
 
         Map<String, Object> response = new HashMap<>();
-        String storedOtp = otpStore.get(email);
-
-        if (storedOtp != null && storedOtp.equals(otp)) {
+        if (otp != null && otpStore.matches(email, otp)) {
             Optional<User> optionalUser = userRepository.findByEmail(email);
             if (optionalUser.isPresent()) {
                 User user = optionalUser.get();
@@ -100,9 +103,12 @@ public class UserController {
                         response.put("message", "Password must not match any of your last 5 passwords.");
                         return ResponseEntity.status(400).body(response);
                     }
-                    user.setPassword(passwordEncoder.encode(newPassword));
+                    user.setPassword(passwordHashingExecutor.encode(newPassword));
                     userRepository.save(user);
                     passwordHistoryService.recordPassword(user, user.getPassword());
+                    principalCache.invalidate(user.getId());
+                    // Sessions opened with the old password must not be able to refresh
+                    refreshTokenService.revokeAllForUser(user.getId());
                     otpStore.remove(email);
 
                     response.put("success", true);
@@ -178,6 +184,7 @@ public class UserController {
         user.setFirstName(firstName.trim());
         user.setLastName(lastName.trim());
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(updatedUser.getId());
 
         response.put("success", true);
         response.put("message", "Profile updated successfully.");
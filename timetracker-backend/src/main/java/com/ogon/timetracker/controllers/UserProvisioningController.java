@@ -0,0 +1,45 @@
+package com.ogon.timetracker.controllers;
+
+import com.ogon.timetracker.dto.UserImportReportDTO;
+import com.ogon.timetracker.services.UserProvisioningService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin-panel")
+@RequiredArgsConstructor
+public class UserProvisioningController {
+
+    private final UserProvisioningService userProvisioningService;
+
+    // Body is streamed: text/csv with a header row, or a JSON array of {email, firstName, lastName, password, role}
+    @Secured("ROLE_ADMIN")
+    @PostMapping(value = "/users/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Map<String, Object>> importUsers(HttpServletRequest request) throws IOException {
+        UserImportReportDTO report;
+        try {
+            report = MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                    ? userProvisioningService.importJson(request.getInputStream())
+                    : userProvisioningService.importCsv(request.getInputStream());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (UncheckedIOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Could not read the import: " + e.getCause().getMessage()));
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "message", report.getCreated() + " of " + report.getTotal() + " user(s) created",
+                "data", report
+        ));
+    }
+}
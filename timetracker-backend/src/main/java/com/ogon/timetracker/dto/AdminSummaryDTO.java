@@ -18,4 +18,8 @@ public class AdminSummaryDTO {
 
     private Set<String> descriptions; // unique descriptions
     private Set<String> effortDates;  // optional dates for export
+
+    // Set when the group has more descriptions or dates than the sets above hold
+    private boolean descriptionsTruncated;
+    private boolean effortDatesTruncated;
 }
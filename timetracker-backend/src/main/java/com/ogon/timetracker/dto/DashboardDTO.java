@@ -0,0 +1,25 @@
+package com.ogon.timetracker.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class DashboardDTO {
+
+    private String startDate;
+    private String endDate;
+
+    private double billableHours;
+    private double nonBillableHours;
+
+    private List<Object[]> clientProjects;          // [month, client, project, billable, nonBillable], month as yyyy-MM
+    private List<String> weekLabels;                // Monday based weeks clipped to the range, e.g. "Nov 3-9", "Oct 27-Nov 2"
+    private Map<String, double[][]> weeklyByClient; // client or "all" -> [billable per week, nonBillable per week]
+    private List<Object[]> tickets;                 // [month, client, project, ticket, billable, nonBillable], largest first per month
+    private List<String> dates;                     // every day of the range, dd-MM-yyyy
+    private double[] dailyTotals;                   // hours per entry of dates
+}
@@ -0,0 +1,18 @@
+package com.ogon.timetracker.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class RollupVerificationDTO {
+
+    private String startDate;
+    private String endDate;
+    private int expectedGroups;
+    private int rollupGroups;
+    private int driftCount;
+    private List<String> drifts; // first few mismatching groups, for troubleshooting
+}
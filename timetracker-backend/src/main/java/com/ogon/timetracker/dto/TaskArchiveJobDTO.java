@@ -0,0 +1,16 @@
+package com.ogon.timetracker.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class TaskArchiveJobDTO {
+
+    private String state; // IDLE, RUNNING, DONE or FAILED
+    private Integer year;
+    private long archivedCells;
+    private String archivedThrough;
+    private String error;
+    private String updatedAt;
+}
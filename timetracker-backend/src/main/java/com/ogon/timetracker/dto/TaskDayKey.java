@@ -0,0 +1,18 @@
+package com.ogon.timetracker.dto;
+
+import com.ogon.timetracker.entities.TaskCellEntity;
+import com.ogon.timetracker.entities.TaskRowEntity;
+
+import java.time.LocalDate;
+
+// A user's day touched by a task write; used to refresh rollups and invalidate caches
+public record TaskDayKey(Long userId, LocalDate workDate) {
+
+    public static TaskDayKey of(TaskRowEntity row, TaskCellEntity cell) {
+        return new TaskDayKey(row.getUserId(), cell.getWorkDate());
+    }
+
+    public boolean isComplete() {
+        return userId != null && workDate != null;
+    }
+}
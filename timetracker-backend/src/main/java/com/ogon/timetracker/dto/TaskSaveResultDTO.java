@@ -0,0 +1,14 @@
+package com.ogon.timetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TaskSaveResultDTO {
+    private int inserted;
+    private int updated;
+    private List<String> updateLogs;
+}
@@ -0,0 +1,12 @@
+package com.ogon.timetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TicketDescriptionDTO {
+    private String ticket;
+    private boolean exists;
+    private String ticketDescription;
+}
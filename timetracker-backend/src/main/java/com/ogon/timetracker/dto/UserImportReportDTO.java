@@ -0,0 +1,16 @@
+package com.ogon.timetracker.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class UserImportReportDTO {
+    private int total;
+    private int created;
+    private int skipped;
+    private int failed;
+    private long durationMs;
+    private List<UserImportResultDTO> results = new ArrayList<>();
+}
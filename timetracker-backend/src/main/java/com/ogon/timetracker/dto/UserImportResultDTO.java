@@ -0,0 +1,14 @@
+package com.ogon.timetracker.dto;
+
+import com.ogon.timetracker.enums.UserImportStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UserImportResultDTO {
+    private int row;
+    private String email;
+    private UserImportStatus status;
+    private String message;
+}
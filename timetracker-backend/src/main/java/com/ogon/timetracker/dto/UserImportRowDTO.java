@@ -0,0 +1,12 @@
+package com.ogon.timetracker.dto;
+
+import lombok.Data;
+
+@Data
+public class UserImportRowDTO {
+    private String email;
+    private String firstName;
+    private String lastName;
+    private String password;
+    private String role;
+}
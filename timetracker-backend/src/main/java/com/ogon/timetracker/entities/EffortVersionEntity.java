@@ -0,0 +1,25 @@
+package com.ogon.timetracker.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Raised by every task write of the user, so cached weekly grids on any instance can tell they are stale
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "effort_versions")
+public class EffortVersionEntity {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
@@ -0,0 +1,25 @@
+package com.ogon.timetracker.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "id_block_sequences")
+public class IdBlockSequenceEntity {
+
+    @Id
+    @Column(name = "sequence_name", length = 64)
+    private String name;
+
+    // First id of the next block that has not been handed to any node yet
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,41 @@
+package com.ogon.timetracker.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * The former one-row-per-day tasks table. TaskStorageMigrationService moves its rows into
+ * task_rows and task_cells at startup; only rows whose date cannot be parsed stay behind.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(name = "tasks", indexes = {
+        @Index(name = "idx_tasks_user_work_date", columnList = "user_id, work_date"),
+        @Index(name = "idx_tasks_client_work_date", columnList = "client, work_date")
+})
+public class LegacyTaskEntity {
+
+    @Id
+    private Long id;
+    private Long rowId;
+    private String firstName;
+    private String lastName;
+    @Column(name = "client")
+    private String client;
+    private String project;
+    private String ticket;
+    private String ticketDescription;
+    private String category;
+    private String description;
+    private String billable;
+    private Double hours;
+    private String date;
+    @Column(name = "work_date")
+    private LocalDate workDate;
+    @Column(name = "user_id")
+    private Long userId;
+}
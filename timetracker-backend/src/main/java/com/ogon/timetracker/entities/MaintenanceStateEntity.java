@@ -0,0 +1,30 @@
+package com.ogon.timetracker.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// One row per one-off or recurring maintenance job that has to remember where it stands
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "maintenance_state")
+public class MaintenanceStateEntity {
+
+    @Id
+    @Column(name = "state_key", length = 64)
+    private String key;
+
+    @Column(name = "state_value")
+    private String value;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,34 @@
+package com.ogon.timetracker.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "otp_tokens", indexes = {
+        @Index(name = "idx_otp_tokens_expires_at", columnList = "expires_at")
+})
+public class OtpTokenEntity {
+
+    @Id
+    @Column(name = "email", length = 255)
+    private String email;
+
+    // SHA-256 of the code, so a database dump does not reveal live OTPs
+    @Column(name = "code_hash", nullable = false, length = 64)
+    private String codeHash;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+}
@@ -0,0 +1,35 @@
+package com.ogon.timetracker.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Hours of one weekly row on one day; the row's other fields are in task_rows
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "task_cells", indexes = {
+        @Index(name = "idx_task_cells_row_work_date", columnList = "row_id, work_date"),
+        @Index(name = "idx_task_cells_work_date", columnList = "work_date")
+})
+public class TaskCellEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "row_id", nullable = false)
+    private Long rowId;
+
+    @Column(name = "work_date", nullable = false)
+    private LocalDate workDate;
+
+    private Double hours;
+}
@@ -0,0 +1,46 @@
+package com.ogon.timetracker.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Summed hours per (user_id, work_date, client_id, project_id, ticket, is_billable).
+ * Rows are recomputed from tasks inside every task write transaction, so reports scan
+ * one row per group and day instead of every raw day cell. Ticket descriptions come from
+ * the tickets table, so renaming a ticket leaves the rollups alone.
+ */
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "task_daily_rollups", indexes = {
+        @Index(name = "idx_rollup_user_work_date", columnList = "user_id, work_date"),
+        @Index(name = "idx_rollup_client_id_work_date", columnList = "client_id, work_date")
+})
+public class TaskDailyRollupEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "work_date")
+    private LocalDate workDate;
+
+    @Column(name = "client_id")
+    private Long clientId;
+    @Column(name = "project_id")
+    private Long projectId;
+    private String ticket;
+    @Column(name = "is_billable")
+    private Boolean billable;
+    private Double hours;
+}
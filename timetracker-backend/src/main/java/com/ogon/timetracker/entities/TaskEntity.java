@@ -1,59 +1,69 @@
 package com.ogon.timetracker.entities;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.ogon.timetracker.converters.JsonMapConverter;
-import io.swagger.v3.oas.annotations.info.Contact;
+import com.ogon.timetracker.rendererer.TimeTrackerRenderer;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
 
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Read-only view of one day cell together with its row header, in the shape the tasks
+ * table used to have, so queries, specifications and reports keep filtering on the same
+ * attributes. Client, project and category are task_terms ids and are decoded through
+ * TaskTermDictionary for output only. Writes go to {@link TaskRowEntity} and
+ * {@link TaskCellEntity} through TaskWriteService.
+ */
 @Entity
+@Immutable
+@Subselect("""
+        SELECT c.id, c.row_id, c.work_date, c.hours,
+               r.user_id, r.first_name, r.last_name, r.client_id, r.project_id, r.ticket,
+               r.ticket_description, r.category_id, r.description, r.is_billable
+        FROM task_cells c
+        JOIN task_rows r ON r.row_id = c.row_id
+        """)
+@Synchronize({"task_cells", "task_rows"})
 @Builder
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "tasks")
 public class TaskEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private Long rowId;
     private String firstName;
     private String lastName;
-    private String client;
-    private String project;
+    @Column(name = "client_id")
+    private Long clientId;
+    @Column(name = "project_id")
+    private Long projectId;
     private String ticket;
     private String ticketDescription;
-    private String category;
+    @Column(name = "category_id")
+    private Long categoryId;
     private String description;
-    private String billable;
+    @Column(name = "is_billable")
+    private Boolean billable;
     private Double hours;
-    private String date;
     @Column(name = "work_date")
     private LocalDate workDate;
+    @Column(name = "user_id")
     private Long userId;
 
-
-
-
-
-
     @Transient
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private Map<String, Double> hoursByDate;
 
-    public Map<String, Double> getHoursByDate() {
-        return hoursByDate;
-    }
-
-    public void setHoursByDate(Map<String, Double> hoursByDate) {
-        this.hoursByDate = hoursByDate;
+    public String getDate() {
+        return TimeTrackerRenderer.toDisplayDate(workDate);
     }
 }
@@ -0,0 +1,58 @@
+package com.ogon.timetracker.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Objects;
+
+/**
+ * Header of a weekly effort row: everything a row's day cells share, stored once per row
+ * instead of once per day. Row ids come from RowIdAllocator; the hours live in task_cells.
+ * Client, project and category are task_terms ids, encoded by TaskTermDictionary.
+ */
+@Entity
+@Builder(toBuilder = true)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "task_rows", indexes = {
+        @Index(name = "idx_task_rows_user", columnList = "user_id"),
+        @Index(name = "idx_task_rows_client_id", columnList = "client_id")
+})
+public class TaskRowEntity {
+
+    @Id
+    @Column(name = "row_id")
+    private Long rowId;
+
+    @Column(name = "user_id")
+    private Long userId;
+    private String firstName;
+    private String lastName;
+    @Column(name = "client_id")
+    private Long clientId;
+    @Column(name = "project_id")
+    private Long projectId;
+    private String ticket;
+    private String ticketDescription;
+    @Column(name = "category_id")
+    private Long categoryId;
+    private String description;
+    @Column(name = "is_billable")
+    private Boolean billable;
+
+    // The fields the grid edits; first and last name follow the user and are not compared
+    public boolean sameFields(Long clientId, Long projectId, String ticket, String ticketDescription,
+                              Long categoryId, String description, Boolean billable) {
+        return Objects.equals(this.clientId, clientId)
+                && Objects.equals(this.projectId, projectId)
+                && Objects.equals(this.ticket, ticket)
+                && Objects.equals(this.ticketDescription, ticketDescription)
+                && Objects.equals(this.categoryId, categoryId)
+                && Objects.equals(this.description, description)
+                && Objects.equals(this.billable, billable);
+    }
+}
@@ -0,0 +1,65 @@
+package com.ogon.timetracker.entities;
+
+import com.ogon.timetracker.enums.TaskTermKind;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Dictionary of the client, project and category values written on task rows. Rows store
+ * the id, so filters and groupings compare integers and the text is decoded for output only.
+ * Terms are never changed or removed, so an id always decodes to exactly what was written,
+ * whatever happens to the admin-managed clients, projects and task types later.
+ * Exact values are unique through their hash, which does not depend on the column collation;
+ * filters match case-insensitively on the trimmed upper-case key.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "task_terms", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_task_terms_kind_hash", columnNames = {"kind", "term_hash"})
+}, indexes = {
+        @Index(name = "idx_task_terms_kind_key", columnList = "kind, term_key")
+})
+public class TaskTermEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 16)
+    private TaskTermKind kind;
+
+    @Column(name = "term", nullable = false)
+    private String term;
+
+    @Column(name = "term_hash", nullable = false, length = 64)
+    private String termHash;
+
+    @Column(name = "term_key", nullable = false)
+    private String termKey;
+
+    public static String keyOf(String term) {
+        return term.trim().toUpperCase(Locale.ROOT);
+    }
+
+    public static String hashOf(String term) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(term.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ogon.timetracker.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * One row per ticket, keyed by the trimmed upper-case ticket number, holding the canonical
+ * ticket description. Task rows keep the description they were written with; screens show
+ * the one from here, so renaming a ticket touches this row only.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "tickets", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_tickets_ticket_key", columnNames = "ticket_key")
+})
+public class TicketEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ticket_key", nullable = false)
+    private String ticketKey;
+
+    // The ticket as first written, for display
+    @Column(name = "ticket", nullable = false)
+    private String ticket;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "first_used_on")
+    private LocalDate firstUsedOn;
+
+    @Column(name = "last_used_on")
+    private LocalDate lastUsedOn;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public static String keyOf(String ticket) {
+        return ticket == null || ticket.isBlank() ? null : ticket.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,5 @@
+package com.ogon.timetracker.enums;
+
+public enum TaskTermKind {
+    CLIENT, PROJECT, CATEGORY
+}
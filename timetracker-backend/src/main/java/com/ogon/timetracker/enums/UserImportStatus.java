@@ -0,0 +1,5 @@
+package com.ogon.timetracker.enums;
+
+public enum UserImportStatus {
+    CREATED, SKIPPED, FAILED
+}
@@ -0,0 +1,5 @@
+package com.ogon.timetracker.events;
+
+// Published once this instance has walked the legacy tasks table, with the rows it moved itself
+public record TaskStorageMigratedEvent(long migrated) {
+}
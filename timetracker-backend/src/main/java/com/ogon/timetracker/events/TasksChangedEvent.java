@@ -0,0 +1,9 @@
+package com.ogon.timetracker.events;
+
+import com.ogon.timetracker.dto.TaskDayKey;
+
+import java.util.Set;
+
+// Published by TaskWriteService with every user-day a task write touched (before and after the change)
+public record TasksChangedEvent(Set<TaskDayKey> days) {
+}
@@ -0,0 +1,5 @@
+package com.ogon.timetracker.events;
+
+// Published by TicketRegistryService when the canonical description of an existing ticket changes
+public record TicketDescriptionChangedEvent(String ticketKey, String description) {
+}
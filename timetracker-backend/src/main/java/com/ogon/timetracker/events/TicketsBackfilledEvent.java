@@ -0,0 +1,5 @@
+package com.ogon.timetracker.events;
+
+// Published once the ticket registry has been filled from existing tasks
+public record TicketsBackfilledEvent(int tickets) {
+}
@@ -0,0 +1,9 @@
+package com.ogon.timetracker.events;
+
+import java.util.Map;
+import java.util.Set;
+
+// Published by TicketRegistryService for every task write: the tickets it carried per client,
+// and the descriptions it sent by ticket key
+public record TicketsUsedEvent(Map<String, Set<String>> ticketsByClient, Map<String, String> descriptions) {
+}
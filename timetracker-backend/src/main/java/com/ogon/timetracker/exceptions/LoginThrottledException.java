@@ -0,0 +1,14 @@
+package com.ogon.timetracker.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
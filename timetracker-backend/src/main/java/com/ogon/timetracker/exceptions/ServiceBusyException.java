@@ -0,0 +1,7 @@
+package com.ogon.timetracker.exceptions;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
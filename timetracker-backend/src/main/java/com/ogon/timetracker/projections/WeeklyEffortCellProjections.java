@@ -0,0 +1,17 @@
+package com.ogon.timetracker.projections;
+
+import java.time.LocalDate;
+
+// One (weekly row, day) cell of the effort grid, hours already summed per day
+public interface WeeklyEffortCellProjections {
+    Long getRowId();
+    Long getClientId();
+    Long getProjectId();
+    String getTicket();
+    String getTicketDescription();
+    Long getCategoryId();
+    Boolean getBillable();
+    String getDescription();
+    LocalDate getWorkDate();
+    Double getHours();
+}
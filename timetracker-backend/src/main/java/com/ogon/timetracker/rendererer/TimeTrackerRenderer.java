@@ -1,5 +1,8 @@
 package com.ogon.timetracker.rendererer;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -7,6 +10,9 @@ import java.util.stream.Collectors;
 
 public class TimeTrackerRenderer {
 
+    private static final DateTimeFormatter DB_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter INPUT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
     public static List<String> findByEmailAddr(String emails) {
 
         if (emails == null || emails.trim().isEmpty()) {
@@ -19,4 +25,43 @@ public class TimeTrackerRenderer {
                 .collect(Collectors.toList());
     }
 
+    // Task dates arrive as dd-MM-yyyy from the grid and yyyy-MM-dd from date pickers
+    public static LocalDate toWorkDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value, DB_FORMATTER);
+        } catch (DateTimeParseException ignored) {
+            return LocalDate.parse(value, INPUT_FORMATTER);
+        }
+    }
+
+    // Whether toWorkDate accepts the value; writes check this first and answer 400 otherwise
+    public static boolean isWorkDate(String value) {
+        if (value == null || value.isBlank()) {
+            return false;
+        }
+        try {
+            toWorkDate(value);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // The dd-MM-yyyy form task dates are stored and shown in
+    public static String toDisplayDate(LocalDate workDate) {
+        return workDate != null ? workDate.format(DB_FORMATTER) : null;
+    }
+
+    // Billable is stored as a flag; the grid sends and shows "Yes" / "No"
+    public static Boolean toBillable(String value) {
+        return value != null ? "yes".equalsIgnoreCase(value.trim()) : null;
+    }
+
+    public static String toBillableLabel(Boolean billable) {
+        return billable != null ? (billable ? "Yes" : "No") : null;
+    }
+
 }
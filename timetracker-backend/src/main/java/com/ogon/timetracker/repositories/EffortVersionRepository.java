@@ -0,0 +1,33 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.EffortVersionEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface EffortVersionRepository extends JpaRepository<EffortVersionEntity, Long> {
+
+    @Query("SELECT v.version FROM EffortVersionEntity v WHERE v.userId = :userId")
+    Optional<Long> findVersion(@Param("userId") Long userId);
+
+    // A user's first write adds the row; a concurrent first write waits for it instead of failing
+    @Modifying
+    @Query("""
+        INSERT INTO EffortVersionEntity (userId, version)
+        VALUES (:userId, 0)
+        ON CONFLICT DO NOTHING
+    """)
+    int insertIfAbsent(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE EffortVersionEntity v SET v.version = v.version + 1 WHERE v.userId IN :userIds")
+    int increment(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query("UPDATE EffortVersionEntity v SET v.version = v.version + 1")
+    int incrementAll();
+}
@@ -0,0 +1,38 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.EmailOutboxEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxEntity, Long> {
+
+    // Due messages plus SENDING rows whose lease ran out; lock timeout -2 = SKIP LOCKED, so
+    // concurrent dispatchers (other instances) claim disjoint batches instead of waiting
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+        SELECT e FROM EmailOutboxEntity e
+        WHERE (e.status = com.ogon.timetracker.enums.EmailOutboxStatus.PENDING AND e.nextAttemptAt <= :now)
+           OR (e.status = com.ogon.timetracker.enums.EmailOutboxStatus.SENDING AND e.lockedUntil <= :now)
+        ORDER BY e.nextAttemptAt
+    """)
+    List<EmailOutboxEntity> claimDue(@Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("""
+        DELETE FROM EmailOutboxEntity e
+        WHERE (e.status = com.ogon.timetracker.enums.EmailOutboxStatus.SENT AND e.sentAt < :cutoff)
+           OR (e.status = com.ogon.timetracker.enums.EmailOutboxStatus.FAILED AND e.createdAt < :cutoff)
+    """)
+    int deleteFinishedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,17 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.IdBlockSequenceEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface IdBlockSequenceRepository extends JpaRepository<IdBlockSequenceEntity, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from IdBlockSequenceEntity s where s.name = :name")
+    Optional<IdBlockSequenceEntity> findForUpdate(@Param("name") String name);
+}
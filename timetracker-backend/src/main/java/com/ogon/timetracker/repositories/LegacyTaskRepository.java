@@ -0,0 +1,30 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.LegacyTaskEntity;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LegacyTaskRepository extends JpaRepository<LegacyTaskEntity, Long> {
+
+    @Query("SELECT DISTINCT t.rowId FROM LegacyTaskEntity t WHERE t.rowId > :afterRowId ORDER BY t.rowId")
+    List<Long> findRowIdsAfter(@Param("afterRowId") Long afterRowId, Pageable pageable);
+
+    @Query("SELECT t.id FROM LegacyTaskEntity t WHERE t.rowId IS NULL AND t.id > :afterId ORDER BY t.id")
+    List<Long> findUngroupedIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Locking reads in id order: a chunk another instance is moving is waited for, then found gone
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM LegacyTaskEntity t WHERE t.rowId IN :rowIds ORDER BY t.id")
+    List<LegacyTaskEntity> findForUpdateByRowIdIn(@Param("rowIds") Collection<Long> rowIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM LegacyTaskEntity t WHERE t.rowId IS NULL AND t.id IN :ids ORDER BY t.id")
+    List<LegacyTaskEntity> findUngroupedForUpdateByIdIn(@Param("ids") Collection<Long> ids);
+}
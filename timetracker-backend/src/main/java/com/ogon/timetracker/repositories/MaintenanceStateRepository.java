@@ -0,0 +1,22 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.MaintenanceStateEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface MaintenanceStateRepository extends JpaRepository<MaintenanceStateEntity, String> {
+
+    // Shared lock: a job changing the state with findForUpdate waits for these readers to commit
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT s FROM MaintenanceStateEntity s WHERE s.key = :key")
+    Optional<MaintenanceStateEntity> findForShare(@Param("key") String key);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM MaintenanceStateEntity s WHERE s.key = :key")
+    Optional<MaintenanceStateEntity> findForUpdate(@Param("key") String key);
+}
@@ -0,0 +1,24 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.OtpTokenEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface OtpTokenRepository extends JpaRepository<OtpTokenEntity, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OtpTokenEntity o WHERE o.email = :email")
+    Optional<OtpTokenEntity> findForUpdate(@Param("email") String email);
+
+    // Walks idx_otp_tokens_expires_at; the caller deletes the returned keys in one batch
+    @Query("SELECT o.email FROM OtpTokenEntity o WHERE o.expiresAt <= :now ORDER BY o.expiresAt")
+    List<String> findExpiredEmails(@Param("now") Instant now, Pageable pageable);
+}
@@ -14,6 +14,10 @@ public interface ProjectRepository extends JpaRepository<ProjectEntity, Long> {
     @Query("select p.projectName from ProjectEntity p where p.client = :client order by p.projectName")
     List<String> findProjectNamesByClient(@Param("client") ClientEntity client);
 
+    // [clientCd, projectName] for every client, used to build the reference-data cache
+    @Query("select p.client.clientCd, p.projectName from ProjectEntity p order by p.client.clientCd, p.projectName")
+    List<Object[]> findAllClientProjectNames();
+
     boolean existsByProjectNameIgnoreCaseAndClient(String projectName, ClientEntity client);
 
     Optional<ProjectEntity> findByProjectNameIgnoreCaseAndClient(String projectName, ClientEntity client);
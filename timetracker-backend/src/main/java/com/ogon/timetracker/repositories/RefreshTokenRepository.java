@@ -0,0 +1,45 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.RefreshTokenEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, String> {
+
+    // Conditional, so of two concurrent uses of the same token exactly one gets 1 back
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity r SET r.revoked = true, r.replacedBy = :next WHERE r.jti = :jti AND r.revoked = false")
+    int markRotated(@Param("jti") String jti, @Param("next") String next);
+
+    @Query("SELECT r.jti FROM RefreshTokenEntity r WHERE r.familyId = :familyId AND r.revoked = false")
+    List<String> findActiveJtisByFamily(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity r SET r.revoked = true WHERE r.familyId = :familyId AND r.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    @Query("SELECT r.jti FROM RefreshTokenEntity r WHERE r.userId = :userId AND r.revoked = false")
+    List<String> findActiveJtisByUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity r SET r.revoked = true WHERE r.userId = :userId AND r.revoked = false")
+    int revokeAllForUser(@Param("userId") Long userId);
+
+    // Keyset pages of revoked, unexpired ids for rebuilding the in-memory revocation filter
+    @Query("""
+        SELECT r.jti FROM RefreshTokenEntity r
+        WHERE r.revoked = true AND r.expiresAt > :now AND r.jti > :afterJti
+        ORDER BY r.jti
+    """)
+    List<String> findRevokedJtis(@Param("now") Instant now, @Param("afterJti") String afterJti, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM RefreshTokenEntity r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,14 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.TaskCellEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TaskCellRepository extends JpaRepository<TaskCellEntity, Long> {
+
+    List<TaskCellEntity> findByRowIdIn(Collection<Long> rowIds);
+
+    long countByRowId(Long rowId);
+}
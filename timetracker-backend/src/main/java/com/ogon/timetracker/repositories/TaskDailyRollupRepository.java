@@ -0,0 +1,49 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.TaskDailyRollupEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface TaskDailyRollupRepository extends JpaRepository<TaskDailyRollupEntity, Long> {
+
+    @Modifying
+    @Query("DELETE FROM TaskDailyRollupEntity r WHERE r.userId = :userId AND r.workDate IN :dates")
+    int deleteForUserAndDates(@Param("userId") Long userId, @Param("dates") Collection<LocalDate> dates);
+
+    @Modifying
+    @Query(value = """
+      INSERT INTO task_daily_rollups (user_id, work_date, client_id, project_id, ticket, is_billable, hours)
+      SELECT r.user_id, c.work_date, r.client_id, r.project_id, r.ticket, r.is_billable, SUM(COALESCE(c.hours, 0))
+      FROM task_cells c
+      JOIN task_rows r ON r.row_id = c.row_id
+      WHERE r.user_id = :userId
+        AND c.work_date IN (:dates)
+      GROUP BY r.user_id, c.work_date, r.client_id, r.project_id, r.ticket, r.is_billable
+      """, nativeQuery = true)
+    int insertForUserAndDates(@Param("userId") Long userId, @Param("dates") Collection<LocalDate> dates);
+
+    @Modifying
+    @Query("DELETE FROM TaskDailyRollupEntity r WHERE r.workDate BETWEEN :startDate AND :endDate")
+    int deleteForRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query(value = """
+      INSERT INTO task_daily_rollups (user_id, work_date, client_id, project_id, ticket, is_billable, hours)
+      SELECT r.user_id, c.work_date, r.client_id, r.project_id, r.ticket, r.is_billable, SUM(COALESCE(c.hours, 0))
+      FROM task_cells c
+      JOIN task_rows r ON r.row_id = c.row_id
+      WHERE c.work_date BETWEEN :startDate AND :endDate
+      GROUP BY r.user_id, c.work_date, r.client_id, r.project_id, r.ticket, r.is_billable
+      """, nativeQuery = true)
+    int insertForRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    List<TaskDailyRollupEntity> findByWorkDateBetween(LocalDate startDate, LocalDate endDate);
+
+    List<TaskDailyRollupEntity> findByUserIdAndWorkDateBetween(Long userId, LocalDate startDate, LocalDate endDate);
+}
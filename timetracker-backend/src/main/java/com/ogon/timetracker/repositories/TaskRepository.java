@@ -7,36 +7,44 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import com.ogon.timetracker.projections.MergedEffortProjections;
+import com.ogon.timetracker.projections.WeeklyEffortCellProjections;
 
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TaskRepository extends JpaRepository<TaskEntity, Long>, JpaSpecificationExecutor<TaskEntity> {
-  TaskEntity findByTicket(String ticketNumber);
-  @Query(value = """
-      SELECT COUNT(*)
-      FROM tasks
-      WHERE UPPER(TRIM(ticket)) = UPPER(TRIM(:ticket))
-      """, nativeQuery = true)
-  long countByTicket(@Param("ticket") String ticket);
-
-  @Query(value = """
-      SELECT ticket_description
-      FROM tasks
-      WHERE UPPER(TRIM(ticket)) = UPPER(TRIM(:ticket))
-        AND ticket_description IS NOT NULL
-        AND TRIM(ticket_description) <> ''
-      ORDER BY id DESC
-      LIMIT 1
-      """, nativeQuery = true)
-  Optional<String> findLatestTicketDescriptionByTicket(@Param("ticket") String ticket);
-
-  @Query("SELECT t FROM TaskEntity t WHERE UPPER(TRIM(t.ticket)) = UPPER(TRIM(:ticket))")
-  List<TaskEntity> findAllByTicket(@Param("ticket") String ticket);
+public interface TaskRepository extends JpaRepository<TaskEntity, Long>, JpaSpecificationExecutor<TaskEntity>,
+        TaskSummaryRepository {
+  // First and last work day of every ticket spelling, for the ticket registry backfill
+  @Query("""
+        SELECT t.ticket, MIN(t.workDate), MAX(t.workDate)
+        FROM TaskEntity t
+        WHERE t.ticket IS NOT NULL AND TRIM(t.ticket) <> ''
+        GROUP BY t.ticket
+    """)
+  List<Object[]> findTicketUsage();
+
+  // Every ticket spelling booked per client, for the ticket search index
+  @Query("""
+        SELECT DISTINCT c.term, t.ticket
+        FROM TaskEntity t JOIN TaskTermEntity c ON c.id = t.clientId
+        WHERE t.ticket IS NOT NULL AND TRIM(t.ticket) <> ''
+    """)
+  List<Object[]> findDistinctClientTickets();
+
+  // Newest non-blank ticket description of every ticket spelling, with the id it came from
+  @Query("""
+        SELECT t.ticket, t.ticketDescription, t.id
+        FROM TaskEntity t
+        WHERE t.id IN (SELECT MAX(d.id) FROM TaskEntity d
+                       WHERE d.ticket IS NOT NULL
+                         AND d.ticketDescription IS NOT NULL AND TRIM(d.ticketDescription) <> ''
+                       GROUP BY d.ticket)
+    """)
+  List<Object[]> findLatestTicketDescriptions();
 
 
 //  @Query("SELECT t FROM TaskEntity t WHERE t.email = :email AND FUNCTION('STR_TO_DATE', t.date, '%d-%m-%Y') BETWEEN :start AND :end")
@@ -46,99 +54,51 @@ public interface TaskRepository extends JpaRepository<TaskEntity, Long>, JpaSpec
 
 
   Optional<TaskEntity> findById(Long id);
-  List<TaskEntity> findByRowId(Long rowId);
-  @Query(value = "SELECT COALESCE(MAX(row_id), 0) + 1 FROM tasks", nativeQuery = true)
-  Long getNextRowId();
-
-  @Query(value = """
-  SELECT
-      row_id AS rowId,
-      client,
-      project,
-      ticket,
-      ticket_description AS ticketDescription,
-      category,
-      billable,
-      description,
-      JSON_OBJECTAGG(date, totalHours) AS hoursByDate
-  FROM (
-      SELECT\s
-          row_id,
-          client,
-          project,
-          ticket,
-          ticket_description,
-          category,
-          billable,
-          description,
-          date,
-          SUM(hours) AS totalHours   -- ✔ sums ONLY same day
-      FROM tasks
-      WHERE user_id = :userId
-        AND STR_TO_DATE(date, '%d-%m-%Y') BETWEEN :startDate AND :endDate
-      GROUP BY row_id,client, project, ticket, ticket_description, category, billable, description, date
-      -- ✔ grouping includes date → means adding only for same day
-  ) merged
-  GROUP BY\s
-      row_id,client, project, ticket, ticket_description, category, billable, description
- \s""", nativeQuery = true)
-  List<MergedEffortProjections> getMergedEffortsByDate(
+
+  // Flat (row, day) cells ordered so each weekly row's cells are adjacent; pivoted in TaskService
+  @Query("""
+        SELECT t.rowId AS rowId, t.clientId AS clientId, t.projectId AS projectId, t.ticket AS ticket,
+               t.ticketDescription AS ticketDescription, t.categoryId AS categoryId, t.billable AS billable,
+               t.description AS description, t.workDate AS workDate, SUM(t.hours) AS hours
+        FROM TaskEntity t
+        WHERE t.userId = :userId
+          AND t.workDate BETWEEN :startDate AND :endDate
+        GROUP BY t.rowId, t.clientId, t.projectId, t.ticket, t.ticketDescription, t.categoryId, t.billable,
+                 t.description, t.workDate
+        ORDER BY t.rowId, t.clientId, t.projectId, t.ticket, t.ticketDescription, t.categoryId, t.billable,
+                 t.description, t.workDate
+    """)
+  List<WeeklyEffortCellProjections> getMergedEffortsByDate(
           @Param("userId") Long userId,
           @Param("startDate") LocalDate startDate,
           @Param("endDate") LocalDate endDate
   );
 
 
-  @Query(value = """
-SELECT *
-FROM tasks
-WHERE email = :email
-  AND client = :client
-  AND ticket = :ticket
-  AND date = :date
-  AND category = :category
-  AND description = :description
-  AND billable = :billable
-  AND rowId = :rowId
-""", nativeQuery = true)
-  List<TaskEntity> findExistingTask(
-          @Param("email") String email,
-          @Param("client") String client,
-          @Param("ticket") String ticket,
-          @Param("date") String date,
-          @Param("category") String category,
-          @Param("description") String description,
-          @Param("billable") String billable,
-          @Param ("rowId") Long rowId
-  );
-
-
-  @Query("SELECT t FROM TaskEntity t WHERE t.userId = :userId AND FUNCTION('STR_TO_DATE', t.date, '%d-%m-%Y') BETWEEN :start AND :end")
+  @Query("SELECT t FROM TaskEntity t WHERE t.userId = :userId AND t.workDate BETWEEN :start AND :end")
   List<TaskEntity> findByUserIdAndDateBetweenString(@Param("userId") Long userId,
                                                    @Param("start") LocalDate start,
                                                    @Param("end") LocalDate end);
 
   @Query("""
         SELECT t FROM TaskEntity t
-        WHERE t.client = :client
-          AND FUNCTION('STR_TO_DATE', t.date, '%d-%m-%Y')
-              BETWEEN :startDate AND :endDate
+        WHERE t.clientId = :clientId
+          AND t.workDate BETWEEN :startDate AND :endDate
     """)
   List<TaskEntity> getSummaryByClientAndDateRange(
-          @Param("client") String client,
+          @Param("clientId") Long clientId,
           @Param("startDate") LocalDate startDate,
           @Param("endDate") LocalDate endDate
   );
 
   @Query("""
         SELECT t FROM TaskEntity t
-        WHERE t.client = :client
+        WHERE t.clientId = :clientId
           AND t.userId IN :userIds
-          AND FUNCTION('STR_TO_DATE', t.date, '%d-%m-%Y')
-              BETWEEN :startDate AND :endDate
+          AND t.workDate BETWEEN :startDate AND :endDate
     """)
   List<TaskEntity> getSummaryByClientAndUserIdsAndDateRange(
-          @Param("client") String client,
+          @Param("clientId") Long clientId,
           @Param("userIds") List<Long> userIds,
           @Param("startDate") LocalDate startDate,
           @Param("endDate") LocalDate endDate
@@ -147,8 +107,7 @@ WHERE email = :email
   @Query("""
         SELECT t FROM TaskEntity t
         WHERE t.userId IN :userIds
-          AND FUNCTION('STR_TO_DATE', t.date, '%d-%m-%Y')
-              BETWEEN :startDate AND :endDate
+          AND t.workDate BETWEEN :startDate AND :endDate
     """)
   List<TaskEntity> findByUserIdsAndDateBetweenString(
           @Param("userIds") List<Long> userIds,
@@ -156,8 +115,19 @@ WHERE email = :email
           @Param("endDate") LocalDate endDate
   );
 
-  @Query("SELECT u.id FROM User u WHERE u.email IN :emails")
-  List<Long> findUserIdsByEmailIn(@Param("emails") List<String> emails);
+  // Same grouping as task_daily_rollups, used to verify the rollup table against raw rows
+  @Query("""
+        SELECT t.userId, t.workDate, t.clientId, t.projectId, t.ticket, t.billable,
+               SUM(COALESCE(t.hours, 0))
+        FROM TaskEntity t
+        WHERE t.workDate BETWEEN :startDate AND :endDate
+        GROUP BY t.userId, t.workDate, t.clientId, t.projectId, t.ticket, t.billable
+    """)
+  List<Object[]> sumByDailyRollupGroup(@Param("startDate") LocalDate startDate,
+                                       @Param("endDate") LocalDate endDate);
+
+  @Query("SELECT MIN(t.workDate), MAX(t.workDate) FROM TaskEntity t")
+  List<Object[]> findWorkDateBounds();
 
 
 }
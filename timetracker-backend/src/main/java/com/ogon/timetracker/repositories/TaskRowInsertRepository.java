@@ -0,0 +1,11 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.TaskRowEntity;
+
+import java.util.Collection;
+
+public interface TaskRowInsertRepository {
+
+    // Row ids are assigned by RowIdAllocator, so save() would merge and SELECT each new row first
+    void persistAll(Collection<TaskRowEntity> rows);
+}
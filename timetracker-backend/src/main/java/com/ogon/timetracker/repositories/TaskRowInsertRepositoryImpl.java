@@ -0,0 +1,22 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.TaskRowEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.Collection;
+
+/**
+ * Inserts new task_rows headers with persist, which queues them for the JDBC batch on
+ * flush without looking them up first, as merge does for an entity with an assigned id.
+ */
+public class TaskRowInsertRepositoryImpl implements TaskRowInsertRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void persistAll(Collection<TaskRowEntity> rows) {
+        rows.forEach(entityManager::persist);
+    }
+}
@@ -0,0 +1,15 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.TaskRowEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface TaskRowRepository extends JpaRepository<TaskRowEntity, Long>, TaskRowInsertRepository {
+
+    // Only used to seed the row-id block sequence; allocate ids through RowIdAllocator
+    @Query(value = """
+      SELECT GREATEST((SELECT COALESCE(MAX(row_id), 0) FROM task_rows),
+                      (SELECT COALESCE(MAX(row_id), 0) FROM tasks)) + 1
+      """, nativeQuery = true)
+    Long getNextRowId();
+}
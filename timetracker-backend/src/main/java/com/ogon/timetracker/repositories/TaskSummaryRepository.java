@@ -0,0 +1,12 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.dto.AdminSummaryDTO;
+import com.ogon.timetracker.specifications.TaskSpecificationBuilder;
+
+import java.util.List;
+
+public interface TaskSummaryRepository {
+
+    // One row per (client, project, ticket), hours summed by billable from the daily rollups
+    List<AdminSummaryDTO> summarize(TaskSpecificationBuilder filter, boolean includeDates);
+}
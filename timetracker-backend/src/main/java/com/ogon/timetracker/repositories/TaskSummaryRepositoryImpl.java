@@ -0,0 +1,262 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.dto.AdminSummaryDTO;
+import com.ogon.timetracker.entities.TaskDailyRollupEntity;
+import com.ogon.timetracker.entities.TaskEntity;
+import com.ogon.timetracker.entities.TicketEntity;
+import com.ogon.timetracker.specifications.TaskSpecificationBuilder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.hibernate.query.criteria.JpaDerivedRoot;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.criteria.JpaSubQuery;
+import org.hibernate.query.criteria.JpaWindow;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Totals and effort dates come from task_daily_rollups and ticket descriptions from the
+ * tickets table; only the free-text descriptions, which are not part of the rollup key,
+ * are still read from the raw task rows. Groups are keyed by client and project ids, whose
+ * names are read from task_terms in one query once the groups are known. Descriptions and
+ * effort dates are ranked within their group by a window function and cut in the same
+ * query, so a group brings back at most MAX_DESCRIPTIONS and MAX_EFFORT_DATES rows however
+ * many days and people booked on it. One more row than the cap is read, so a group that
+ * had more is flagged as truncated instead of being cut silently.
+ */
+public class TaskSummaryRepositoryImpl implements TaskSummaryRepository {
+
+    static final int MAX_DESCRIPTIONS = 50;
+    static final int MAX_EFFORT_DATES = 92;
+    private static final DateTimeFormatter DB_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final Comparator<AdminSummaryDTO> GROUP_ORDER = Comparator
+            .comparing(AdminSummaryDTO::getClient, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(AdminSummaryDTO::getProject, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(AdminSummaryDTO::getTicket, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AdminSummaryDTO> summarize(TaskSpecificationBuilder filter, boolean includeDates) {
+        Specification<TaskDailyRollupEntity> rollupSpec = withTicket(filter.build());
+        Specification<TaskEntity> taskSpec = withTicket(filter.build());
+
+        Map<GroupKey, AdminSummaryDTO> groups = new LinkedHashMap<>();
+        for (Tuple row : loadTotals(rollupSpec)) {
+            GroupKey key = GroupKey.of(row);
+            groups.put(key, AdminSummaryDTO.builder()
+                    .ticket(key.ticket())
+                    .billableHours(toDouble(row.get(3)))
+                    .nonBillableHours(toDouble(row.get(4)))
+                    .descriptions(new HashSet<>())
+                    .effortDates(includeDates ? new HashSet<>() : null)
+                    .build());
+        }
+        if (groups.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, String> terms = loadTermValues(groups.keySet());
+        groups.forEach((key, summary) -> {
+            summary.setClient(terms.get(key.clientId()));
+            summary.setProject(terms.get(key.projectId()));
+        });
+
+        Map<String, String> ticketDescriptions = loadTicketDescriptions(groups.keySet());
+        groups.forEach((key, summary) ->
+                summary.setTicketDescription(ticketDescriptions.get(TicketEntity.keyOf(key.ticket()))));
+
+        for (Tuple row : loadDescriptions(taskSpec)) {
+            AdminSummaryDTO summary = groups.get(GroupKey.of(row));
+            if (summary == null) {
+                continue;
+            }
+            if (row.get(4, Long.class) > MAX_DESCRIPTIONS) {
+                summary.setDescriptionsTruncated(true);
+            } else {
+                summary.getDescriptions().add(row.get(3, String.class));
+            }
+        }
+
+        if (includeDates) {
+            for (Tuple row : loadEffortDates(rollupSpec)) {
+                AdminSummaryDTO summary = groups.get(GroupKey.of(row));
+                if (summary == null) {
+                    continue;
+                }
+                if (row.get(4, Long.class) > MAX_EFFORT_DATES) {
+                    summary.setEffortDatesTruncated(true);
+                } else {
+                    summary.getEffortDates().add(row.get(3, LocalDate.class).format(DB_FORMATTER));
+                }
+            }
+        }
+
+        List<AdminSummaryDTO> summaries = new ArrayList<>(groups.values());
+        summaries.sort(GROUP_ORDER);
+        return summaries;
+    }
+
+    private static <T> Specification<T> withTicket(Specification<T> spec) {
+        return spec.and((root, query, cb) -> cb.isNotNull(root.get("ticket")));
+    }
+
+    private List<Tuple> loadTotals(Specification<TaskDailyRollupEntity> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<TaskDailyRollupEntity> root = query.from(TaskDailyRollupEntity.class);
+
+        Expression<Double> hours = cb.coalesce(root.<Double>get("hours"), 0.0);
+        Predicate billable = cb.isTrue(root.get("billable"));
+        Expression<Double> billableHours = cb.<Double>selectCase()
+                .when(billable, hours)
+                .otherwise(0.0);
+        Expression<Double> nonBillableHours = cb.<Double>selectCase()
+                .when(billable, cb.literal(0.0))
+                .otherwise(hours);
+
+        query.multiselect(
+                        root.get("clientId"),
+                        root.get("projectId"),
+                        root.get("ticket"),
+                        cb.sum(billableHours),
+                        cb.sum(nonBillableHours))
+                .where(spec.toPredicate(root, query, cb))
+                .groupBy(root.get("clientId"), root.get("projectId"), root.get("ticket"));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    // The earliest MAX_EFFORT_DATES days per group, plus the next one if there is one, cut by the database
+    private List<Tuple> loadEffortDates(Specification<TaskDailyRollupEntity> spec) {
+        HibernateCriteriaBuilder cb = (HibernateCriteriaBuilder) entityManager.getCriteriaBuilder();
+        JpaCriteriaQuery<Tuple> query = cb.createTupleQuery();
+        JpaSubQuery<Tuple> ranked = query.subquery(Tuple.class);
+        JpaRoot<TaskDailyRollupEntity> root = ranked.from(TaskDailyRollupEntity.class);
+
+        Expression<LocalDate> value = root.get("workDate");
+        ranked.multiselect(groupColumns(root, value, cb.denseRank(groupWindow(cb, root, value))))
+                .where(spec.toPredicate(root, query, cb));
+
+        return loadFirstPerGroup(cb, query, ranked, MAX_EFFORT_DATES);
+    }
+
+    // The first MAX_DESCRIPTIONS distinct trimmed descriptions per group, plus the next one, cut by the database
+    private List<Tuple> loadDescriptions(Specification<TaskEntity> spec) {
+        HibernateCriteriaBuilder cb = (HibernateCriteriaBuilder) entityManager.getCriteriaBuilder();
+        JpaCriteriaQuery<Tuple> query = cb.createTupleQuery();
+        JpaSubQuery<Tuple> ranked = query.subquery(Tuple.class);
+        JpaRoot<TaskEntity> root = ranked.from(TaskEntity.class);
+
+        Expression<String> value = cb.trim(root.<String>get("description"));
+        ranked.multiselect(groupColumns(root, value, cb.denseRank(groupWindow(cb, root, value))))
+                .where(cb.and(
+                        spec.toPredicate(root, query, cb),
+                        cb.isNotNull(root.get("description")),
+                        cb.notEqual(value, "")));
+
+        return loadFirstPerGroup(cb, query, ranked, MAX_DESCRIPTIONS);
+    }
+
+    // Dense rank, so equal values share a position and the cut counts distinct values
+    private static JpaWindow groupWindow(HibernateCriteriaBuilder cb, Root<?> root, Expression<?> value) {
+        return cb.createWindow()
+                .partitionBy(root.get("clientId"), root.get("projectId"), root.get("ticket"))
+                .orderBy(cb.asc(value));
+    }
+
+    private static List<Selection<?>> groupColumns(Root<?> root, Expression<?> value, Expression<Long> position) {
+        return List.of(
+                root.get("clientId").alias("clientId"),
+                root.get("projectId").alias("projectId"),
+                root.get("ticket").alias("ticket"),
+                value.alias("item"),
+                position.alias("ordinal"));
+    }
+
+    // Rows ranked past limit only tell the caller that the group was cut
+    private List<Tuple> loadFirstPerGroup(HibernateCriteriaBuilder cb, JpaCriteriaQuery<Tuple> query,
+                                          JpaSubQuery<Tuple> ranked, int limit) {
+        JpaDerivedRoot<Tuple> group = query.from(ranked);
+        query.multiselect(
+                        group.get("clientId"),
+                        group.get("projectId"),
+                        group.get("ticket"),
+                        group.get("item"),
+                        group.get("ordinal"))
+                .distinct(true)
+                .where(cb.le(group.<Long>get("ordinal"), (long) limit + 1));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private Map<Long, String> loadTermValues(Collection<GroupKey> groups) {
+        Set<Long> ids = new HashSet<>();
+        groups.forEach(group -> {
+            ids.add(group.clientId());
+            ids.add(group.projectId());
+        });
+        ids.remove(null);
+        Map<Long, String> values = new HashMap<>();
+        if (ids.isEmpty()) {
+            return values;
+        }
+        entityManager.createQuery(
+                        "SELECT t.id, t.term FROM TaskTermEntity t WHERE t.id IN :ids", Tuple.class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(row -> values.put(row.get(0, Long.class), row.get(1, String.class)));
+        return values;
+    }
+
+    private Map<String, String> loadTicketDescriptions(Collection<GroupKey> groups) {
+        Set<String> keys = new HashSet<>();
+        groups.forEach(group -> keys.add(TicketEntity.keyOf(group.ticket())));
+        keys.remove(null);
+        Map<String, String> descriptions = new HashMap<>();
+        if (keys.isEmpty()) {
+            return descriptions;
+        }
+        entityManager.createQuery(
+                        "SELECT t.ticketKey, t.description FROM TicketEntity t WHERE t.ticketKey IN :keys", Tuple.class)
+                .setParameter("keys", keys)
+                .getResultList()
+                .forEach(row -> descriptions.put(row.get(0, String.class), row.get(1, String.class)));
+        return descriptions;
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0;
+    }
+
+    private record GroupKey(Long clientId, Long projectId, String ticket) {
+
+        static GroupKey of(Tuple row) {
+            return new GroupKey(
+                    row.get(0, Long.class),
+                    row.get(1, Long.class),
+                    row.get(2, String.class));
+        }
+    }
+}
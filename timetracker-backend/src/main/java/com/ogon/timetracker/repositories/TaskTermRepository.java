@@ -0,0 +1,40 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.TaskTermEntity;
+import com.ogon.timetracker.enums.TaskTermKind;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface TaskTermRepository extends JpaRepository<TaskTermEntity, Long> {
+
+    Optional<TaskTermEntity> findByKindAndTermHash(TaskTermKind kind, String termHash);
+
+    // Locking read, so it sees a term committed by another transaction after this one's snapshot
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT t FROM TaskTermEntity t WHERE t.kind = :kind AND t.termHash = :termHash")
+    Optional<TaskTermEntity> findCurrentByKindAndTermHash(@Param("kind") TaskTermKind kind,
+                                                          @Param("termHash") String termHash);
+
+    @Query("SELECT t.id FROM TaskTermEntity t WHERE t.kind = :kind AND t.termKey = :termKey")
+    List<Long> findIdsByKindAndTermKey(@Param("kind") TaskTermKind kind, @Param("termKey") String termKey);
+
+    // Inserts the term unless the exact value exists; a concurrent insert of the same value waits
+    // for the other transaction instead of failing, so the caller's transaction is never aborted
+    @Modifying
+    @Query("""
+        INSERT INTO TaskTermEntity (kind, term, termHash, termKey)
+        VALUES (:kind, :term, :termHash, :termKey)
+        ON CONFLICT (kind, termHash) DO NOTHING
+    """)
+    int insertIfAbsent(@Param("kind") TaskTermKind kind,
+                       @Param("term") String term,
+                       @Param("termHash") String termHash,
+                       @Param("termKey") String termKey);
+}
@@ -14,6 +14,10 @@ public interface TaskTypeRepository extends JpaRepository<TaskTypeEntity, Long>
     @Query("select t.taskName from TaskTypeEntity t where t.client = :client")
     List<String> findTaskNamesByClient(@Param("client") ClientEntity client);
 
+    // [clientCd, taskName] for every client, used to build the reference-data cache
+    @Query("select t.client.clientCd, t.taskName from TaskTypeEntity t order by t.client.clientCd, t.id")
+    List<Object[]> findAllClientTaskNames();
+
     boolean existsByTaskNameIgnoreCaseAndClient(
             String taskName, ClientEntity client
     );
@@ -0,0 +1,69 @@
+package com.ogon.timetracker.repositories;
+
+import com.ogon.timetracker.entities.TicketEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface TicketRepository extends JpaRepository<TicketEntity, Long> {
+
+    Optional<TicketEntity> findByTicketKey(String ticketKey);
+
+    List<TicketEntity> findByTicketKeyIn(Collection<String> ticketKeys);
+
+    @Query("SELECT t.ticket, t.description FROM TicketEntity t")
+    List<Object[]> findAllTicketsAndDescriptions();
+
+    @Query("SELECT t.ticketKey, t.description FROM TicketEntity t WHERE t.ticketKey IN :keys")
+    List<Object[]> findDescriptionsByTicketKeyIn(@Param("keys") Collection<String> keys);
+
+    // Inserts the ticket unless its key exists; a concurrent insert of the same key waits for
+    // the other transaction instead of failing, so the caller's transaction is never aborted
+    @Modifying
+    @Query("""
+        INSERT INTO TicketEntity (ticketKey, ticket, updatedAt)
+        VALUES (:key, :ticket, :now)
+        ON CONFLICT (ticketKey) DO NOTHING
+    """)
+    int insertIfAbsent(@Param("key") String key,
+                       @Param("ticket") String ticket,
+                       @Param("now") Instant now);
+
+    // Widens the used range; conditional, so concurrent writers never move it backwards
+    @Modifying
+    @Query("""
+        UPDATE TicketEntity t
+        SET t.firstUsedOn = CASE WHEN t.firstUsedOn IS NULL OR t.firstUsedOn > :firstUsedOn
+                                 THEN :firstUsedOn ELSE t.firstUsedOn END,
+            t.lastUsedOn = CASE WHEN t.lastUsedOn IS NULL OR t.lastUsedOn < :lastUsedOn
+                                THEN :lastUsedOn ELSE t.lastUsedOn END,
+            t.updatedAt = :now
+        WHERE t.ticketKey = :key
+    """)
+    int recordUse(@Param("key") String key,
+                  @Param("firstUsedOn") LocalDate firstUsedOn,
+                  @Param("lastUsedOn") LocalDate lastUsedOn,
+                  @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE TicketEntity t SET t.description = :description, t.updatedAt = :now WHERE t.ticketKey = :key")
+    int updateDescription(@Param("key") String key,
+                          @Param("description") String description,
+                          @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+        UPDATE TicketEntity t SET t.description = :description, t.updatedAt = :now
+        WHERE t.ticketKey = :key AND t.description IS NULL
+    """)
+    int fillDescription(@Param("key") String key,
+                        @Param("description") String description,
+                        @Param("now") Instant now);
+}
@@ -3,8 +3,12 @@ package com.ogon.timetracker.repositories;
 
 import com.ogon.timetracker.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +19,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmailIgnoreCase(String email);
 
+    // [email, id] pairs only; no entity or roles are loaded. The emails passed in must be lower case,
+    // so the match ignores case whatever the column collation
+    @Query("SELECT u.email, u.id FROM User u WHERE LOWER(u.email) IN :emails")
+    List<Object[]> findIdsByLowerEmailIn(@Param("emails") Collection<String> emails);
+
 }
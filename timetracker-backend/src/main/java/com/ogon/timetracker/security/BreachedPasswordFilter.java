@@ -0,0 +1,141 @@
+package com.ogon.timetracker.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Blocklist of breached and common passwords, kept as a Bloom filter in a file that is
+ * memory-mapped read-only, so a list of millions of entries costs a few megabytes of page
+ * cache instead of heap and a lookup is a handful of byte reads. False positives are
+ * possible at the rate the file was built with; false negatives are not.
+ * The filter is off unless app.password-policy.breached-filter-path points to a file
+ * produced by {@link #build(Path, Path, double)}, e.g. through {@link BreachedPasswordFilterBuilder}.
+ */
+@Slf4j
+@Component
+public class BreachedPasswordFilter {
+
+    private static final int MAGIC = 0x54544246;
+    private static final int HEADER_BYTES = 16;
+
+    private final String filterPath;
+    private MappedByteBuffer bits;
+    private long bitCount;
+    private int hashCount;
+
+    public BreachedPasswordFilter(@Value("${app.password-policy.breached-filter-path:}") String filterPath) {
+        this.filterPath = filterPath;
+    }
+
+    @PostConstruct
+    void load() throws IOException {
+        if (filterPath == null || filterPath.isBlank()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(Path.of(filterPath), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Breached password filter is larger than 2 GB: " + filterPath);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < HEADER_BYTES || mapped.getInt(0) != MAGIC) {
+                throw new IllegalStateException("Not a breached password filter: " + filterPath);
+            }
+            hashCount = mapped.getInt(4);
+            bitCount = mapped.getLong(8);
+            if (HEADER_BYTES + (bitCount + 7) / 8 > channel.size()) {
+                throw new IllegalStateException("Truncated breached password filter: " + filterPath);
+            }
+            bits = mapped;
+        }
+        log.info("Breached password filter loaded from {} ({} bits, {} hashes)", filterPath, bitCount, hashCount);
+    }
+
+    public boolean isEnabled() {
+        return bits != null;
+    }
+
+    public boolean mightContain(String password) {
+        if (bits == null || password == null) {
+            return false;
+        }
+        long[] hash = hash(password);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash[0] + i * hash[1], bitCount);
+            if ((bits.get(HEADER_BYTES + (int) (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds a filter file from a plain list with one password per line, sized for the
+     * number of lines and the requested false positive rate. Meant to be run offline when
+     * the list is updated; the resulting file is what the service maps at startup.
+     */
+    public static void build(Path passwordList, Path target, double falsePositiveRate) throws IOException {
+        long entries;
+        try (var lines = Files.lines(passwordList, StandardCharsets.UTF_8)) {
+            entries = Math.max(1, lines.filter(line -> !line.isEmpty()).count());
+        }
+        long bitCount = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / entries * Math.log(2)));
+        if (HEADER_BYTES + (bitCount + 7) / 8 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Filter for " + entries + " entries would exceed 2 GB");
+        }
+
+        byte[] filter = new byte[(int) ((bitCount + 7) / 8)];
+        try (BufferedReader reader = Files.newBufferedReader(passwordList, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                long[] hash = hash(line);
+                for (int i = 0; i < hashCount; i++) {
+                    long bit = Math.floorMod(hash[0] + i * hash[1], bitCount);
+                    filter[(int) (bit >>> 3)] |= (byte) (1 << (bit & 7));
+                }
+            }
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(hashCount)
+                .putLong(bitCount)
+                .flip();
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(header);
+            ByteBuffer body = ByteBuffer.wrap(filter);
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+    }
+
+    // Double hashing: two independent 64-bit values from one SHA-256 yield all probe positions
+    private static long[] hash(String password) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            return new long[]{buffer.getLong(), buffer.getLong() | 1};
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.ogon.timetracker.security;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Command line entry point for building the breached password filter file offline:
+ * {@code java -cp <app classpath> com.ogon.timetracker.security.BreachedPasswordFilterBuilder
+ * <password-list> <target-file> [false-positive-rate]}.
+ */
+public final class BreachedPasswordFilterBuilder {
+
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+
+    private BreachedPasswordFilterBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BreachedPasswordFilterBuilder <password-list> <target-file> [false-positive-rate]");
+            System.exit(1);
+        }
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_FALSE_POSITIVE_RATE;
+        BreachedPasswordFilter.build(Path.of(args[0]), Path.of(args[1]), rate);
+    }
+}
@@ -0,0 +1,116 @@
+package com.ogon.timetracker.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ogon.timetracker.exceptions.ResourceNotFoundException;
+import com.ogon.timetracker.repositories.UserRepository;
+import com.ogon.timetracker.userdetails.CustomUserDetails;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Turns the caller, or an email a request names explicitly, into a user id without loading
+ * the User entity. The caller's id comes straight from the principal that JwtAuthFilter
+ * put into the security context for this request. Naming anyone else's email needs
+ * ROLE_ADMIN, as only the admin screens act for other users. Those emails go through a
+ * bounded email-to-id cache that is filled with one id-only IN query for all the emails it
+ * is missing; emails are matched ignoring case on every database, and since they never
+ * change, entries need no invalidation.
+ */
+@Component
+public class CurrentUserResolver {
+
+    private final UserRepository userRepository;
+    private final Cache<String, Long> idsByEmail;
+
+    public CurrentUserResolver(UserRepository userRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.auth.user-id-cache.max-entries:10000}") long maxEntries) {
+        this.userRepository = userRepository;
+        this.idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(Duration.ofHours(12))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByEmail, "userIdsByEmail");
+    }
+
+    public Long currentUserId() {
+        return currentUser().getId();
+    }
+
+    /** The caller's id when email is blank or their own, otherwise the id of that user, for admins only. */
+    public Long resolve(String email) {
+        CustomUserDetails caller = currentUser();
+        if (email == null || email.isBlank() || isOwn(caller, email)) {
+            return caller.getId();
+        }
+        Long id = resolveIds(List.of(email)).stream().findFirst().orElse(null);
+        if (id == null) {
+            throw new ResourceNotFoundException("User not found with email: " + email);
+        }
+        return id;
+    }
+
+    /** Ids of the users with these emails; unknown emails are left out. Others' emails need ROLE_ADMIN. */
+    public List<Long> resolveIds(Collection<String> emails) {
+        List<String> keys = emails.stream()
+                .filter(Objects::nonNull)
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> !email.isEmpty())
+                .distinct()
+                .toList();
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        CustomUserDetails caller = currentUser();
+        if (!isAdmin(caller) && keys.stream().anyMatch(email -> !isOwn(caller, email))) {
+            throw new AccessDeniedException("Only admins can act for other users");
+        }
+        Map<String, Long> ids = idsByEmail.getAll(keys, this::loadIds);
+        return keys.stream().map(ids::get).filter(Objects::nonNull).distinct().toList();
+    }
+
+    // Keys are lower case already and the query compares lower-cased emails
+    private Map<String, Long> loadIds(Iterable<? extends String> emails) {
+        List<String> missing = new ArrayList<>();
+        emails.forEach(missing::add);
+        Map<String, Long> result = new HashMap<>();
+        for (Object[] row : userRepository.findIdsByLowerEmailIn(missing)) {
+            result.put(((String) row[0]).toLowerCase(Locale.ROOT), (Long) row[1]);
+        }
+        return result;
+    }
+
+    private static boolean isOwn(CustomUserDetails caller, String email) {
+        return email.trim().equalsIgnoreCase(caller.getUsername());
+    }
+
+    private static boolean isAdmin(CustomUserDetails caller) {
+        return caller.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+
+    private CustomUserDetails currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails principal)) {
+            throw new AuthenticationCredentialsNotFoundException("No authenticated user for this request");
+        }
+        return principal;
+    }
+}
@@ -1,9 +1,10 @@
 package com.ogon.timetracker.security;
 
-import com.ogon.timetracker.entities.User;
 import com.ogon.timetracker.services.JwtService;
-import com.ogon.timetracker.services.UserService;
+import com.ogon.timetracker.services.RefreshTokenService;
 import com.ogon.timetracker.userdetails.CustomUserDetails;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,7 +25,8 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
-    private final UserService userService;
+    private final PrincipalCache principalCache;
+    private final RefreshTokenService refreshTokenService;
 
     @Autowired
     @Qualifier("handlerExceptionResolver")
@@ -41,11 +43,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             }
 
             String token = requestTokenHeader.split("Bearer ")[1];
-            Long userId = jwtService.getUserIdFromToken(token);
+            Claims claims = jwtService.getClaims(token);
+            // Only refresh tokens carry a jti; a revoked one must not work as a bearer token either
+            if (claims.getId() != null && refreshTokenService.isRevoked(claims.getId())) {
+                throw new JwtException("Token has been revoked");
+            }
 
-            if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                User user = userService.getUserById(userId);
-                CustomUserDetails userDetails = new CustomUserDetails(user);
+            if (claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                CustomUserDetails userDetails = principalCache.resolve(claims);
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authenticationToken.setDetails(
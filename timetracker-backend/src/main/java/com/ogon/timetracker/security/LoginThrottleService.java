@@ -0,0 +1,252 @@
+package com.ogon.timetracker.security;
+
+import com.ogon.timetracker.exceptions.LoginThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Brute-force protection for the login endpoint, checked before any database or bcrypt
+ * work. Every attempt takes a token from two buckets, one for the email and one for the
+ * client address; an empty bucket rejects the attempt until it refills. Consecutive
+ * failures on a key also lock it out for a delay that doubles with every failure past
+ * the free ones, and a successful login clears the email's failures. Locked-out requests
+ * are answered immediately with a Retry-After instead of being held on a request thread.
+ * Buckets live in lock-striped LRU maps with a fixed size per stripe, so memory stays
+ * bounded however many emails or addresses an attacker cycles through, and a periodic
+ * sweep drops buckets that have refilled and carry no failures.
+ */
+@Component
+public class LoginThrottleService {
+
+    private static final long BASE_DELAY_MS = 1000;
+
+    private final Clock clock;
+    private final Limits emailLimits;
+    private final Limits ipLimits;
+    private final long maxDelayMs;
+    private final Stripe[] stripes;
+    private final Counter blockedByEmail;
+    private final Counter blockedByIp;
+
+    @Autowired
+    public LoginThrottleService(MeterRegistry meterRegistry,
+                                @Value("${app.auth.login-throttle.stripes:64}") int stripeCount,
+                                @Value("${app.auth.login-throttle.max-entries:100000}") int maxEntries,
+                                @Value("${app.auth.login-throttle.email.capacity:5}") int emailCapacity,
+                                @Value("${app.auth.login-throttle.email.refill-seconds:60}") long emailRefillSeconds,
+                                @Value("${app.auth.login-throttle.email.free-failures:3}") int emailFreeFailures,
+                                @Value("${app.auth.login-throttle.ip.capacity:50}") int ipCapacity,
+                                @Value("${app.auth.login-throttle.ip.refill-seconds:2}") long ipRefillSeconds,
+                                @Value("${app.auth.login-throttle.ip.free-failures:20}") int ipFreeFailures,
+                                @Value("${app.auth.login-throttle.max-delay-seconds:900}") long maxDelaySeconds) {
+        this(Clock.systemUTC(), meterRegistry, stripeCount, maxEntries,
+                new Limits(emailCapacity, emailRefillSeconds * 1000, emailFreeFailures),
+                new Limits(ipCapacity, ipRefillSeconds * 1000, ipFreeFailures),
+                maxDelaySeconds * 1000);
+    }
+
+    LoginThrottleService(Clock clock, MeterRegistry meterRegistry, int stripeCount, int maxEntries,
+                         Limits emailLimits, Limits ipLimits, long maxDelayMs) {
+        this.clock = clock;
+        this.emailLimits = emailLimits;
+        this.ipLimits = ipLimits;
+        this.maxDelayMs = maxDelayMs;
+        this.stripes = new Stripe[stripeCount];
+        int perStripe = Math.max(1, maxEntries / stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(i, perStripe);
+        }
+        this.blockedByEmail = Counter.builder("auth.login.throttled")
+                .description("Login attempts rejected by the brute-force throttle")
+                .tag("key", "email")
+                .register(meterRegistry);
+        this.blockedByIp = Counter.builder("auth.login.throttled")
+                .description("Login attempts rejected by the brute-force throttle")
+                .tag("key", "ip")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.throttle.entries", this, LoginThrottleService::size)
+                .description("Email and address buckets currently tracked")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the email's and the address's bucket, or throws without
+     * taking either when one of them is empty or locked out.
+     */
+    public void checkAllowed(String email, String clientIp) {
+        String emailKey = emailKey(email);
+        String ipKey = ipKey(clientIp);
+        Stripe emailStripe = stripeFor(emailKey);
+        Stripe ipStripe = stripeFor(ipKey);
+        // Lock in stripe order so two requests never wait on each other's stripes
+        Stripe first = emailStripe.index <= ipStripe.index ? emailStripe : ipStripe;
+        Stripe second = first == emailStripe ? ipStripe : emailStripe;
+        long now = clock.millis();
+        first.lock.lock();
+        second.lock.lock();
+        try {
+            Bucket emailBucket = emailStripe.bucket(emailKey, emailLimits, now);
+            Bucket ipBucket = ipStripe.bucket(ipKey, ipLimits, now);
+            long emailWait = emailBucket.waitMs(now);
+            long ipWait = ipBucket.waitMs(now);
+            if (emailWait > 0 || ipWait > 0) {
+                (emailWait >= ipWait ? blockedByEmail : blockedByIp).increment();
+                throw new LoginThrottledException("Too many login attempts. Please try again later.",
+                        Math.max(1, (Math.max(emailWait, ipWait) + 999) / 1000));
+            }
+            emailBucket.tokens--;
+            ipBucket.tokens--;
+        } finally {
+            second.lock.unlock();
+            first.lock.unlock();
+        }
+    }
+
+    public void recordFailure(String email, String clientIp) {
+        long now = clock.millis();
+        fail(emailKey(email), emailLimits, now);
+        fail(ipKey(clientIp), ipLimits, now);
+    }
+
+    public void recordSuccess(String email) {
+        String key = emailKey(email);
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket != null) {
+                bucket.failures = 0;
+                bucket.blockedUntil = 0;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.login-throttle.sweep-ms:60000}")
+    public void evictIdle() {
+        long now = clock.millis();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.buckets.values().removeIf(bucket -> bucket.isIdle(now, maxDelayMs));
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private void fail(String key, Limits limits, long now) {
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.bucket(key, limits, now);
+            bucket.failures++;
+            bucket.failedAt = now;
+            int overLimit = bucket.failures - limits.freeFailures();
+            if (overLimit > 0) {
+                long delay = BASE_DELAY_MS << Math.min(overLimit - 1, 30);
+                bucket.blockedUntil = now + Math.min(delay, maxDelayMs);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + (email == null ? "" : email.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static String ipKey(String clientIp) {
+        return "i:" + (clientIp == null ? "" : clientIp);
+    }
+
+    record Limits(int capacity, long refillMs, int freeFailures) {
+    }
+
+    private static final class Stripe {
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Bucket> buckets;
+
+        private Stripe(int index, int maxEntries) {
+            this.index = index;
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        // Caller holds the lock
+        private Bucket bucket(String key, Limits limits, long now) {
+            Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(limits, now));
+            bucket.refill(now);
+            return bucket;
+        }
+    }
+
+    private static final class Bucket {
+        private final Limits limits;
+        private double tokens;
+        private long refilledAt;
+        private int failures;
+        private long failedAt;
+        private long blockedUntil;
+
+        private Bucket(Limits limits, long now) {
+            this.limits = limits;
+            this.tokens = limits.capacity();
+            this.refilledAt = now;
+        }
+
+        private void refill(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(limits.capacity(), tokens + (double) (now - refilledAt) / limits.refillMs());
+                refilledAt = now;
+            }
+        }
+
+        private long waitMs(long now) {
+            long lockout = blockedUntil - now;
+            long refill = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * limits.refillMs());
+            return Math.max(0, Math.max(lockout, refill));
+        }
+
+        // Failures are forgotten once the key has been quiet for the longest lockout
+        private boolean isIdle(long now, long failureMemoryMs) {
+            refill(now);
+            return blockedUntil <= now && tokens >= limits.capacity()
+                    && (failures == 0 || now - failedAt >= failureMemoryMs);
+        }
+    }
+}
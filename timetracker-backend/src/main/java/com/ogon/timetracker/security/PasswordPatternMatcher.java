@@ -0,0 +1,144 @@
+package com.ogon.timetracker.security;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton over lowercase letters and digits. Patterns are compiled once
+ * into a complete transition table, so matching walks the text a single time with one
+ * array lookup per character, however many patterns there are. Any other character
+ * sends the automaton back to the root, since no pattern contains one. Each state keeps
+ * the strongest {@link Kind} of every pattern ending there, failure links included.
+ */
+public final class PasswordPatternMatcher {
+
+    /** Pattern kinds, weakest first; a scan reports the strongest one it meets. */
+    public enum Kind {
+        DICTIONARY, SEQUENCE, SENSITIVE
+    }
+
+    private static final int ALPHABET = 36;
+    private static final byte NONE = -1;
+    private static final Kind[] KINDS = Kind.values();
+
+    private final int[][] next;
+    private final byte[] output;
+
+    private PasswordPatternMatcher(int[][] next, byte[] output) {
+        this.next = next;
+        this.output = output;
+    }
+
+    public static PasswordPatternMatcher compile(Map<String, Kind> patterns) {
+        List<int[]> trie = new ArrayList<>();
+        List<Byte> out = new ArrayList<>();
+        trie.add(newState());
+        out.add(NONE);
+
+        for (Map.Entry<String, Kind> pattern : patterns.entrySet()) {
+            String word = pattern.getKey();
+            if (word.isEmpty() || !word.chars().allMatch(ch -> index((char) ch) >= 0)) {
+                throw new IllegalArgumentException("Unsupported pattern: " + word);
+            }
+            int state = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int c = index(word.charAt(i));
+                if (trie.get(state)[c] < 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(newState());
+                    out.add(NONE);
+                }
+                state = trie.get(state)[c];
+            }
+            out.set(state, (byte) Math.max(out.get(state), pattern.getValue().ordinal()));
+        }
+
+        int[][] next = trie.toArray(new int[0][]);
+        byte[] output = new byte[out.size()];
+        for (int i = 0; i < output.length; i++) {
+            output[i] = out.get(i);
+        }
+
+        // Breadth-first, so a state's failure target is complete before the state itself
+        int[] fail = new int[next.length];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            if (next[0][c] < 0) {
+                next[0][c] = 0;
+            } else {
+                queue.add(next[0][c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            output[state] = (byte) Math.max(output[state], output[fail[state]]);
+            for (int c = 0; c < ALPHABET; c++) {
+                int child = next[state][c];
+                if (child < 0) {
+                    next[state][c] = next[fail[state]][c];
+                } else {
+                    fail[child] = next[fail[state]][c];
+                    queue.add(child);
+                }
+            }
+        }
+        return new PasswordPatternMatcher(next, output);
+    }
+
+    public static PasswordPatternMatcher compile(Collection<String> patterns, Kind kind) {
+        Map<String, Kind> byPattern = new HashMap<>();
+        patterns.forEach(pattern -> byPattern.put(pattern, kind));
+        return compile(byPattern);
+    }
+
+    /**
+     * Runs this automaton and {@code extra} side by side over {@code text} in one pass and
+     * returns the strongest kind either of them matched, or null. The shared automaton
+     * holds the fixed patterns, {@code extra} the few that are specific to one user.
+     */
+    public Kind strongestMatch(CharSequence text, PasswordPatternMatcher extra) {
+        int best = NONE;
+        int state = 0;
+        int extraState = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int c = index(text.charAt(i));
+            if (c < 0) {
+                state = 0;
+                extraState = 0;
+                continue;
+            }
+            state = next[state][c];
+            best = Math.max(best, output[state]);
+            if (extra != null) {
+                extraState = extra.next[extraState][c];
+                best = Math.max(best, extra.output[extraState]);
+            }
+            if (best == Kind.SENSITIVE.ordinal()) {
+                break;
+            }
+        }
+        return best == NONE ? null : KINDS[best];
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static int index(char ch) {
+        if (ch >= 'a' && ch <= 'z') {
+            return ch - 'a';
+        }
+        if (ch >= '0' && ch <= '9') {
+            return 26 + ch - '0';
+        }
+        return -1;
+    }
+}
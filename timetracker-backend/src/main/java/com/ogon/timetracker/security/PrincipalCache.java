@@ -0,0 +1,73 @@
+package com.ogon.timetracker.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ogon.timetracker.services.UserService;
+import com.ogon.timetracker.userdetails.CustomUserDetails;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resolves the principal of an authenticated request without touching the database on the
+ * common path. By default principals are loaded once per user and kept in a bounded TTL
+ * cache, which user-changing endpoints invalidate. With app.auth.principal-source=claims
+ * the principal is built from the access token's subject, email and roles claims only, so
+ * role changes take effect when the user's next access token is issued.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserService userService;
+    private final boolean claimsOnly;
+    private final Cache<Long, CustomUserDetails> cache;
+
+    public PrincipalCache(UserService userService,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.auth.principal-source:cache}") String principalSource,
+                          @Value("${app.auth.principal-cache.max-entries:10000}") long maxEntries,
+                          @Value("${app.auth.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userService = userService;
+        this.claimsOnly = "claims".equalsIgnoreCase(principalSource);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    public CustomUserDetails resolve(Claims claims) {
+        Long userId = Long.valueOf(claims.getSubject());
+        String roles = claims.get("roles", String.class);
+        String email = claims.get("email", String.class);
+        // Refresh tokens carry no roles claim, so they always go through the cache
+        if (claimsOnly && roles != null && email != null) {
+            return new CustomUserDetails(userId, email, parseRoles(roles));
+        }
+        return cache.get(userId, id -> new CustomUserDetails(userService.getUserById(id)));
+    }
+
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    // The claim is Set<Role>.toString(), e.g. "[ADMIN, USER]"
+    private static List<GrantedAuthority> parseRoles(String roles) {
+        return Arrays.stream(roles.replace("[", "").replace("]", "").split(","))
+                .map(String::trim)
+                .filter(role -> !role.isEmpty())
+                .<GrantedAuthority>map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.ogon.timetracker.security;
+
+import com.ogon.timetracker.repositories.RefreshTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory Bloom filter of revoked refresh token ids. A negative answer is definite, so
+ * the common case of a live token never touches the refresh_tokens table; only positives,
+ * revoked tokens plus a small false positive rate, are confirmed against it.
+ * The filter is loaded from the table at startup and rebuilt periodically, which drops
+ * ids that have since expired and picks up revocations made by other instances.
+ * Revocations on this instance are added immediately, including while a rebuild runs.
+ */
+@Slf4j
+@Component
+public class RevokedTokenFilter {
+
+    private static final int PAGE_SIZE = 10_000;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+    private volatile Bits current;
+    private volatile Bits building;
+
+    public RevokedTokenFilter(RefreshTokenRepository refreshTokenRepository,
+                              @Value("${app.auth.refresh-tokens.filter.expected-entries:500000}") long expectedEntries,
+                              @Value("${app.auth.refresh-tokens.filter.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.current = new Bits(expectedEntries, falsePositiveRate);
+    }
+
+    @PostConstruct
+    void load() {
+        rebuild();
+    }
+
+    public boolean mightContain(String jti) {
+        return current.mightContain(jti);
+    }
+
+    public void add(String jti) {
+        current.add(jti);
+        Bits next = building;
+        if (next != null) {
+            next.add(jti);
+        }
+    }
+
+    public void addAll(Collection<String> jtis) {
+        jtis.forEach(this::add);
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.refresh-tokens.filter.rebuild-ms:600000}",
+            initialDelayString = "${app.auth.refresh-tokens.filter.rebuild-ms:600000}")
+    public synchronized void rebuild() {
+        // Published before reading the table, so an id revoked meanwhile lands in either
+        Bits next = new Bits(expectedEntries, falsePositiveRate);
+        building = next;
+        try {
+            Instant now = Instant.now();
+            String after = "";
+            long loaded = 0;
+            while (true) {
+                List<String> page = refreshTokenRepository.findRevokedJtis(now, after, PageRequest.of(0, PAGE_SIZE));
+                page.forEach(next::add);
+                loaded += page.size();
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                after = page.get(page.size() - 1);
+            }
+            current = next;
+            if (loaded > expectedEntries) {
+                log.warn("{} revoked refresh tokens exceed the filter's expected {}; false positives will rise",
+                        loaded, expectedEntries);
+            }
+        } finally {
+            building = null;
+        }
+    }
+
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        private Bits(long expectedEntries, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+            this.bitCount = (long) words.length() * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * Math.log(2)));
+        }
+
+        private void add(String jti) {
+            long[] hash = hash(jti);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash[0] + i * hash[1], bitCount);
+                words.getAndAccumulate((int) (bit >>> 6), 1L << bit, (word, mask) -> word | mask);
+            }
+        }
+
+        private boolean mightContain(String jti) {
+            long[] hash = hash(jti);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash[0] + i * hash[1], bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Ids are random UUIDs, so their two halves already serve as independent hashes
+        private static long[] hash(String jti) {
+            UUID id = UUID.fromString(jti);
+            return new long[]{id.getMostSignificantBits(), id.getLeastSignificantBits() | 1};
+        }
+    }
+}
@@ -11,12 +11,13 @@ import com.ogon.timetracker.exceptions.InvalidEmailDomainException;
 import com.ogon.timetracker.exceptions.ResourceNotFoundException;
 import com.ogon.timetracker.exceptions.RuntimeConflictException;
 import com.ogon.timetracker.repositories.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -27,12 +28,13 @@ import org.modelmapper.ModelMapper;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
     private final ModelMapper modelMapper;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final PasswordPolicyService passwordPolicyService;
     private final PasswordHistoryService passwordHistoryService;
+    private final RefreshTokenService refreshTokenService;
 
     @Value("${company.email.domain}")
     private String companyDomain;
@@ -53,7 +55,7 @@ public class AuthService {
 
         User mappedUser = modelMapper.map(signUpRequestDTO, User.class);
         mappedUser.setRoles(Set.of(Role.USER));
-        mappedUser.setPassword(passwordEncoder.encode(signUpRequestDTO.getPassword()));
+        mappedUser.setPassword(passwordHashingExecutor.encode(signUpRequestDTO.getPassword()));
         User savedUser = userRepository.save(mappedUser);
         passwordHistoryService.recordPassword(savedUser, savedUser.getPassword());
 
@@ -71,13 +73,13 @@ public class AuthService {
             }
 
 
-            if (!passwordEncoder.matches(password, user.getPassword())) {
+            if (!passwordHashingExecutor.matches(password, user.getPassword())) {
 
                 throw new BadCredentialsException("Invalid password for User");
             }
 
             String accessToken=jwtService.generateAccessToken(user);
-            String refreshToken=jwtService.generateRefreshToken(user);
+            String refreshToken=refreshTokenService.issue(user.getId());
             String username = user.getFirstName() + " " + user.getLastName();
 
             return new LoginResponseDTO(accessToken, refreshToken, user.getRoles(), username);
@@ -92,15 +94,29 @@ public class AuthService {
 //        User verifiedUser=(User) authentication.getPrincipal();
 
     }
-    public String refreshToken(String refreshToken) {
-        Long userId = jwtService.getUserIdFromToken(refreshToken);
+    // Refresh tokens are single use: the response carries the successor of the one presented
+    public LoginResponseDTO refreshToken(String refreshToken) {
+        Claims claims = jwtService.getClaims(refreshToken);
+        Long userId = Long.valueOf(claims.getSubject());
         User user = userRepository.findById(userId).orElseThrow(() -> new ResourceNotFoundException("User not found " +
                 "with id: "+userId));
 
-        return jwtService.generateAccessToken(user);
+        String nextRefreshToken = refreshTokenService.rotate(claims);
+        return new LoginResponseDTO(jwtService.generateAccessToken(user), nextRefreshToken, null, null);
     }
 
-    private void validateCompanyEmail(String email) {
+    // An expired or tampered cookie has nothing left to revoke, so logout still succeeds
+    public void logout(String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtService.getClaims(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            return;
+        }
+        refreshTokenService.revokeFamily(claims);
+    }
+
+    public void validateCompanyEmail(String email) {
         if (email == null || !email.contains("@")) {
             throw new InvalidEmailDomainException("Invalid email");
         }
@@ -0,0 +1,123 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.dto.DashboardDTO;
+import com.ogon.timetracker.entities.TaskDailyRollupEntity;
+import com.ogon.timetracker.repositories.TaskDailyRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * Builds every dashboard series in a single pass over the user's daily rollups, so the
+ * dashboard receives a few small arrays instead of the full weekly effort pivot.
+ */
+@Service
+@RequiredArgsConstructor
+public class DashboardService {
+
+    public static final String ALL_CLIENTS = "all";
+
+    private final TaskDailyRollupRepository rollupRepository;
+    private final TaskTermDictionary taskTermDictionary;
+    private final DateTimeFormatter dbFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private final DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM", Locale.ENGLISH);
+    private final DateTimeFormatter monthKeyFormatter = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    public DashboardDTO build(Long userId, LocalDate startDate, LocalDate endDate) {
+        LocalDate firstMonday = startDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        int dayCount = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        int weekCount = (int) (ChronoUnit.DAYS.between(firstMonday, endDate) / 7) + 1;
+
+        double[] dailyTotals = new double[dayCount];
+        double[] billableSplit = new double[2];
+        Map<String, double[][]> weeklyByClient = new TreeMap<>();
+        weeklyByClient.put(ALL_CLIENTS, new double[2][weekCount]);
+        Map<List<String>, double[]> clientProjects = new HashMap<>();
+        Map<List<String>, double[]> tickets = new HashMap<>();
+
+        for (TaskDailyRollupEntity rollup : rollupRepository.findByUserIdAndWorkDateBetween(userId, startDate, endDate)) {
+            double hours = rollup.getHours() != null ? rollup.getHours() : 0;
+            if (hours <= 0) {
+                continue;
+            }
+            int split = Boolean.TRUE.equals(rollup.getBillable()) ? 0 : 1;
+            int week = (int) (ChronoUnit.DAYS.between(firstMonday, rollup.getWorkDate()) / 7);
+            String client = trimToEmpty(taskTermDictionary.decode(rollup.getClientId()));
+            String project = trimToEmpty(taskTermDictionary.decode(rollup.getProjectId()));
+            String ticket = trimToEmpty(rollup.getTicket());
+            String month = rollup.getWorkDate().format(monthKeyFormatter);
+
+            dailyTotals[(int) ChronoUnit.DAYS.between(startDate, rollup.getWorkDate())] += hours;
+            billableSplit[split] += hours;
+            weeklyByClient.get(ALL_CLIENTS)[split][week] += hours;
+
+            if (client.isEmpty()) {
+                continue;
+            }
+            weeklyByClient.computeIfAbsent(client, key -> new double[2][weekCount])[split][week] += hours;
+            clientProjects.computeIfAbsent(List.of(month, client, project.isEmpty() ? "Unknown Project" : project),
+                    key -> new double[2])[split] += hours;
+            if (!ticket.isEmpty()) {
+                tickets.computeIfAbsent(List.of(month, client, project, ticket), key -> new double[2])[split] += hours;
+            }
+        }
+
+        List<String> dates = new ArrayList<>(dayCount);
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            dates.add(day.format(dbFormatter));
+        }
+
+        return DashboardDTO.builder()
+                .startDate(startDate.format(dbFormatter))
+                .endDate(endDate.format(dbFormatter))
+                .billableHours(billableSplit[0])
+                .nonBillableHours(billableSplit[1])
+                .clientProjects(toRows(clientProjects))
+                .weekLabels(weekLabels(firstMonday, startDate, endDate, weekCount))
+                .weeklyByClient(weeklyByClient)
+                .tickets(toRows(tickets))
+                .dates(dates)
+                .dailyTotals(dailyTotals)
+                .build();
+    }
+
+    private List<String> weekLabels(LocalDate firstMonday, LocalDate startDate, LocalDate endDate, int weekCount) {
+        List<String> labels = new ArrayList<>(weekCount);
+        for (int week = 0; week < weekCount; week++) {
+            LocalDate from = firstMonday.plusWeeks(week);
+            LocalDate to = from.plusDays(6);
+            from = from.isBefore(startDate) ? startDate : from;
+            to = to.isAfter(endDate) ? endDate : to;
+            String end = to.getMonth() == from.getMonth()
+                    ? String.valueOf(to.getDayOfMonth())
+                    : to.format(monthFormatter) + " " + to.getDayOfMonth();
+            labels.add(from.format(monthFormatter) + " " + from.getDayOfMonth() + "-" + end);
+        }
+        return labels;
+    }
+
+    // Flattens grouped totals into [month, key..., billable, nonBillable] rows, by month and then largest total first
+    private static List<Object[]> toRows(Map<List<String>, double[]> totals) {
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        for (Map.Entry<List<String>, double[]> entry : totals.entrySet()) {
+            List<String> key = entry.getKey();
+            Object[] row = Arrays.copyOf(key.toArray(), key.size() + 2);
+            row[key.size()] = entry.getValue()[0];
+            row[key.size() + 1] = entry.getValue()[1];
+            rows.add(row);
+        }
+        rows.sort(Comparator.<Object[], String>comparing(row -> (String) row[0])
+                .thenComparingDouble(row -> -((double) row[row.length - 2] + (double) row[row.length - 1])));
+        return rows;
+    }
+
+    private static String trimToEmpty(String value) {
+        return value == null ? "" : value.trim();
+    }
+}
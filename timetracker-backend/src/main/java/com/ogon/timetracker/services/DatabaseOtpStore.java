@@ -0,0 +1,110 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.entities.OtpTokenEntity;
+import com.ogon.timetracker.repositories.OtpTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * OTP store shared by every backend instance through the otp_tokens table. Verification
+ * locks the row so concurrent guesses are counted exactly; expired rows are purged in
+ * small batches along the expires_at index.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "database")
+public class DatabaseOtpStore implements OtpStore {
+
+    private static final int PURGE_BATCH_SIZE = 500;
+
+    private final OtpTokenRepository otpTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final int maxAttempts;
+
+    public DatabaseOtpStore(OtpTokenRepository otpTokenRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.otp.ttl-seconds:600}") long ttlSeconds,
+                            @Value("${app.otp.max-attempts:5}") int maxAttempts) {
+        this.otpTokenRepository = otpTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public void save(String email, String otp) {
+        otpTokenRepository.save(OtpTokenEntity.builder()
+                .email(OtpStore.normalize(email))
+                .codeHash(hash(otp))
+                .expiresAt(Instant.now().plus(ttl))
+                .attempts(0)
+                .build());
+    }
+
+    @Override
+    public boolean matches(String email, String otp) {
+        Boolean matched = transactionTemplate.execute(status -> {
+            OtpTokenEntity token = otpTokenRepository.findForUpdate(OtpStore.normalize(email)).orElse(null);
+            if (token == null || !token.getExpiresAt().isAfter(Instant.now())) {
+                return false;
+            }
+            if (MessageDigest.isEqual(token.getCodeHash().getBytes(StandardCharsets.US_ASCII),
+                    hash(otp).getBytes(StandardCharsets.US_ASCII))) {
+                return token.getAttempts() < maxAttempts;
+            }
+            token.setAttempts(token.getAttempts() + 1);
+            return false;
+        });
+        return Boolean.TRUE.equals(matched);
+    }
+
+    @Override
+    public void remove(String email) {
+        String key = OtpStore.normalize(email);
+        if (otpTokenRepository.existsById(key)) {
+            otpTokenRepository.deleteById(key);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.otp.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int purged = 0;
+        List<String> batch;
+        do {
+            batch = otpTokenRepository.findExpiredEmails(now, PageRequest.of(0, PURGE_BATCH_SIZE));
+            if (!batch.isEmpty()) {
+                List<String> emails = batch;
+                transactionTemplate.executeWithoutResult(status -> otpTokenRepository.deleteAllByIdInBatch(emails));
+                purged += batch.size();
+            }
+        } while (batch.size() == PURGE_BATCH_SIZE);
+        if (purged > 0) {
+            log.debug("Purged {} expired OTPs", purged);
+        }
+    }
+
+    private static String hash(String otp) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(String.valueOf(otp).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.entities.EmailOutboxEntity;
+import com.ogon.timetracker.enums.EmailOutboxStatus;
+import com.ogon.timetracker.repositories.EmailOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends queued emails. Each round claims a batch of due rows (marking them SENDING with a
+ * lease in a short transaction), hands the whole batch to one JavaMailSender call so it
+ * goes over a single SMTP connection, and then records SENT, or schedules a retry with
+ * exponential backoff, or gives up with FAILED after the last attempt. A message with an
+ * expiry, such as an OTP, is also given up once it expires or its next retry would fall
+ * after its expiry, so a code is never delivered after it stopped being valid. The body, which may
+ * hold a one-time password, is blanked once a message is SENT or FAILED, and a nightly purge
+ * deletes those rows after the retention period.
+ */
+@Slf4j
+@Component
+public class EmailOutboxDispatcher {
+
+    // Blank rather than null, so existing tables keep their NOT NULL body column
+    static final String REDACTED_BODY = "";
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration lease;
+    private final Duration retention;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 JavaMailSender mailSender,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+                                 @Value("${app.mail.outbox.max-attempts:6}") int maxAttempts,
+                                 @Value("${app.mail.outbox.initial-backoff-seconds:30}") long initialBackoffSeconds,
+                                 @Value("${app.mail.outbox.lease-seconds:120}") long leaseSeconds,
+                                 @Value("${app.mail.outbox.retention-hours:24}") long retentionHours) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofSeconds(initialBackoffSeconds);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-ms:2000}")
+    public void dispatch() {
+        try {
+            while (dispatchBatch() == batchSize) {
+                // keep draining while full batches come back
+            }
+        } catch (RuntimeException e) {
+            log.error("Email outbox dispatch failed", e);
+        }
+    }
+
+    @Scheduled(cron = "${app.mail.outbox.purge-cron:0 45 3 * * *}")
+    public void purgeFinished() {
+        Integer deleted = transactionTemplate.execute(status ->
+                emailOutboxRepository.deleteFinishedBefore(Instant.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} sent or failed emails from the outbox", deleted);
+        }
+    }
+
+    // Claims, sends and records one batch; returns the number of messages handled
+    public int dispatchBatch() {
+        List<EmailOutboxEntity> batch = claim();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Instant now = Instant.now();
+        List<EmailOutboxEntity> live = new ArrayList<>();
+        for (EmailOutboxEntity email : batch) {
+            if (email.getExpiresAt() != null && !email.getExpiresAt().isAfter(now)) {
+                markExpired(email);
+            } else {
+                live.add(email);
+            }
+        }
+        if (!live.isEmpty()) {
+            deliver(live);
+        }
+        transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(batch));
+        return batch.size();
+    }
+
+    private List<EmailOutboxEntity> claim() {
+        List<EmailOutboxEntity> claimed = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<EmailOutboxEntity> due = emailOutboxRepository.claimDue(now, PageRequest.of(0, batchSize));
+            for (EmailOutboxEntity email : due) {
+                email.setStatus(EmailOutboxStatus.SENDING);
+                email.setLockedUntil(now.plus(lease));
+                email.setAttempts(email.getAttempts() + 1);
+            }
+            return due;
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    void deliver(List<EmailOutboxEntity> batch) {
+        Map<SimpleMailMessage, EmailOutboxEntity> byMessage = new IdentityHashMap<>();
+        for (EmailOutboxEntity email : batch) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            byMessage.put(message, email);
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        try {
+            mailSender.send(byMessage.keySet().toArray(SimpleMailMessage[]::new));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                // Nothing says which messages made it, so treat the whole batch as failed
+                byMessage.values().forEach(email -> markFailedAttempt(email, e));
+                return;
+            }
+        } catch (MailException e) {
+            byMessage.values().forEach(email -> markFailedAttempt(email, e));
+            return;
+        }
+
+        Map<EmailOutboxEntity, Exception> failedEmails = new IdentityHashMap<>();
+        failures.forEach((message, error) -> {
+            EmailOutboxEntity email = byMessage.get(message);
+            if (email != null) {
+                failedEmails.put(email, error);
+            }
+        });
+
+        Instant now = Instant.now();
+        for (EmailOutboxEntity email : batch) {
+            Exception error = failedEmails.get(email);
+            if (error != null) {
+                markFailedAttempt(email, error);
+            } else {
+                email.setStatus(EmailOutboxStatus.SENT);
+                email.setSentAt(now);
+                email.setLockedUntil(null);
+                email.setLastError(null);
+                email.setBody(REDACTED_BODY);
+            }
+        }
+    }
+
+    private void markFailedAttempt(EmailOutboxEntity email, Exception error) {
+        email.setLockedUntil(null);
+        email.setLastError(truncate(String.valueOf(error.getMessage())));
+        if (email.getAttempts() >= maxAttempts) {
+            email.setStatus(EmailOutboxStatus.FAILED);
+            email.setBody(REDACTED_BODY);
+            log.warn("Giving up on email {} to {} after {} attempts", email.getId(), email.getRecipient(), email.getAttempts());
+            return;
+        }
+        // 30s, 1m, 2m, 4m, ... after the 1st, 2nd, 3rd, 4th failed attempt
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(email.getAttempts() - 1, 20));
+        Instant nextAttemptAt = Instant.now().plus(backoff);
+        if (email.getExpiresAt() != null && !nextAttemptAt.isBefore(email.getExpiresAt())) {
+            markExpired(email);
+            return;
+        }
+        email.setStatus(EmailOutboxStatus.PENDING);
+        email.setNextAttemptAt(nextAttemptAt);
+    }
+
+    private void markExpired(EmailOutboxEntity email) {
+        email.setStatus(EmailOutboxStatus.FAILED);
+        email.setLockedUntil(null);
+        email.setBody(REDACTED_BODY);
+        email.setLastError(truncate("Expired before it could be sent"
+                + (email.getLastError() != null ? ": " + email.getLastError() : "")));
+        log.warn("Giving up on email {} to {}, it expired at {}", email.getId(), email.getRecipient(), email.getExpiresAt());
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
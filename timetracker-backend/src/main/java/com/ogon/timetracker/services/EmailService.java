@@ -1,28 +1,55 @@
 package com.ogon.timetracker.services;
 
-import com.ogon.timetracker.exceptions.InvalidEmailDomainException;
+import com.ogon.timetracker.entities.EmailOutboxEntity;
+import com.ogon.timetracker.repositories.EmailOutboxRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+
+/**
+ * Queues emails in the email_outbox table; {@link EmailOutboxDispatcher} sends them in
+ * the background. Enqueuing joins the caller's transaction, if any, so a message is only
+ * sent when the change that triggered it commits.
+ */
 @Service
 public class EmailService {
 
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailOutboxRepository emailOutboxRepository;
+
+    // The OTP stores accept a code for this long, so the message stops being sent after it too
+    @Value("${app.otp.ttl-seconds:600}")
+    private long otpTtlSeconds;
 
     public boolean sendOtp(String toEmail, String otp) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(toEmail);
-            message.setSubject("Your OTP for Time Tracker");
-            message.setText("Your Password Change OTP is: " + otp + "\nIt is valid for 10 minutes.");
-            mailSender.send(message);
-            return true;
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new InvalidEmailDomainException("Error in Sending OTP.Please Try Again Later");
+        enqueue(toEmail,
+                "Your OTP for Time Tracker",
+                "Your Password Change OTP is: " + otp + "\nIt is valid for " + describe(otpTtlSeconds) + ".",
+                Instant.now().plusSeconds(otpTtlSeconds));
+        return true;
+    }
+
+    public void enqueue(String toEmail, String subject, String body) {
+        enqueue(toEmail, subject, body, null);
+    }
+
+    // A null expiresAt keeps retrying until the dispatcher's last attempt
+    public void enqueue(String toEmail, String subject, String body, Instant expiresAt) {
+        emailOutboxRepository.save(EmailOutboxEntity.builder()
+                .recipient(toEmail)
+                .subject(subject)
+                .body(body)
+                .expiresAt(expiresAt)
+                .build());
+    }
+
+    private static String describe(long seconds) {
+        if (seconds % 60 != 0) {
+            return seconds + (seconds == 1 ? " second" : " seconds");
         }
+        long minutes = seconds / 60;
+        return minutes + (minutes == 1 ? " minute" : " minutes");
     }
 }
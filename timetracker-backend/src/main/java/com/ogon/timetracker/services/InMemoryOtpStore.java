@@ -0,0 +1,103 @@
+package com.ogon.timetracker.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-instance OTP store. Entries sit in a concurrent map and are also registered in
+ * a timing wheel: one bucket per tick, addressed by expiry time. Each tick purges only
+ * the bucket that just came due, so expiry costs are proportional to what expires
+ * rather than to the size of the map.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private static final long TICK_MS = 10_000;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String>[] wheel;
+    private final long ttlMs;
+    private final int maxAttempts;
+    private long lastPurgedTick;
+
+    @SuppressWarnings("unchecked")
+    public InMemoryOtpStore(@Value("${app.otp.ttl-seconds:600}") long ttlSeconds,
+                            @Value("${app.otp.max-attempts:5}") int maxAttempts) {
+        this.ttlMs = ttlSeconds * 1000;
+        this.maxAttempts = maxAttempts;
+        // Enough buckets that a slot is never reused before its entries have expired
+        this.wheel = new Set[(int) (ttlMs / TICK_MS) + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.lastPurgedTick = System.currentTimeMillis() / TICK_MS;
+    }
+
+    @Override
+    public void save(String email, String otp) {
+        String key = OtpStore.normalize(email);
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        entries.put(key, new Entry(otp, expiresAt, new AtomicInteger()));
+        wheel[slot(expiresAt / TICK_MS)].add(key);
+    }
+
+    @Override
+    public boolean matches(String email, String otp) {
+        Entry entry = entries.get(OtpStore.normalize(email));
+        if (entry == null || entry.isExpired(System.currentTimeMillis())) {
+            return false;
+        }
+        if (entry.otp().equals(otp)) {
+            return entry.attempts().get() < maxAttempts;
+        }
+        entry.attempts().incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public void remove(String email) {
+        entries.remove(OtpStore.normalize(email));
+    }
+
+    @Scheduled(fixedDelay = TICK_MS)
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / TICK_MS;
+        for (long tick = lastPurgedTick; tick <= currentTick; tick++) {
+            Set<String> bucket = wheel[slot(tick)];
+            bucket.removeIf(key -> {
+                Entry entry = entries.get(key);
+                if (entry == null) {
+                    return true;
+                }
+                if (entry.isExpired(now)) {
+                    // Only drop the entry this bucket was tracking, not a newer code for the same email
+                    entries.remove(key, entry);
+                    return true;
+                }
+                // Not due yet (current tick, or a newer code for the email); look again next time round
+                return false;
+            });
+        }
+        lastPurgedTick = currentTick;
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % wheel.length);
+    }
+
+    private record Entry(String otp, long expiresAt, AtomicInteger attempts) {
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
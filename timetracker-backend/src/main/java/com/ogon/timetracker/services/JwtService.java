@@ -1,29 +1,69 @@
 package com.ogon.timetracker.services;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.ogon.timetracker.entities.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies JWTs. The HMAC key and the parser are built once. Verified claims
+ * are cached by the SHA-256 digest of the token until the token's own expiry, so the
+ * same session token is only signature-checked on its first request.
+ */
 @Service
 @RequiredArgsConstructor
 public class JwtService {
 
+    public static final Duration REFRESH_TOKEN_TTL = Duration.ofDays(180);
+
     @Value("${app.jwt.secret}")
     private String jwtSecretKey;
 
-    private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(jwtSecretKey.getBytes(StandardCharsets.UTF_8));
+    @Value("${app.jwt.claims-cache.max-entries:20000}")
+    private long claimsCacheMaxEntries;
+
+    private final MeterRegistry meterRegistry;
+
+    private SecretKey secretKey;
+    private JwtParser parser;
+    private Cache<String, Claims> verifiedClaims;
+    private Timer verifyTimer;
+
+    @PostConstruct
+    void init() {
+        secretKey = Keys.hmacShaKeyFor(jwtSecretKey.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(secretKey).build();
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxEntries)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwtClaims");
+        verifyTimer = Timer.builder("jwt.verify")
+                .description("Signature check and parsing of tokens not found in the claims cache")
+                .register(meterRegistry);
     }
 
 
@@ -34,25 +74,70 @@ public class JwtService {
                 .claim("roles", user.getRoles().toString())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + 1000*60*30))
-                .signWith(getSecretKey())
+                .signWith(secretKey)
                 .compact();
     }
 
-    public String generateRefreshToken(User user) {
+    // Tracked in refresh_tokens by jti; fam ties every rotation of one login together
+    public String generateRefreshToken(Long userId, String jti, String familyId, Instant expiresAt) {
         return Jwts.builder()
-                .subject(user.getId().toString())
+                .subject(userId.toString())
+                .id(jti)
+                .claim("fam", familyId)
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + 1000L *60*60*24*30*6))
-                .signWith(getSecretKey())
+                .expiration(Date.from(expiresAt))
+                .signWith(secretKey)
                 .compact();
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSecretKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return Long.valueOf(claims.getSubject());
+        return Long.valueOf(getClaims(token).getSubject());
+    }
+
+    public Claims getClaims(String token) {
+        String digest = digest(token);
+        Claims cached = verifiedClaims.getIfPresent(digest);
+        if (cached != null && !isExpired(cached)) {
+            return cached;
+        }
+
+        // Invalid or expired tokens throw here and are never cached
+        Claims claims = verifyTimer.record(() -> parser.parseSignedClaims(token).getPayload());
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(digest, claims);
+        }
+        return claims;
+    }
+
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().getTime() <= System.currentTimeMillis();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class UntilTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
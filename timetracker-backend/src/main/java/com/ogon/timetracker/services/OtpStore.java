@@ -0,0 +1,21 @@
+package com.ogon.timetracker.services;
+
+/**
+ * Short-lived one-time passwords keyed by email. Implementations expire codes after
+ * app.otp.ttl-seconds and stop accepting a code after app.otp.max-attempts wrong guesses.
+ * Selected with app.otp.store: "memory" (single instance) or "database" (shared by all instances).
+ */
+public interface OtpStore {
+
+    // Stores a new code for the email, replacing any previous one and its attempt count
+    void save(String email, String otp);
+
+    // True if the code is current and correct; a wrong code counts as a failed attempt
+    boolean matches(String email, String otp);
+
+    void remove(String email);
+
+    static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase();
+    }
+}
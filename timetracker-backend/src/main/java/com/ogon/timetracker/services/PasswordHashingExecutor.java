@@ -0,0 +1,156 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bcrypt on a small dedicated pool instead of the request threads. The queue is
+ * bounded and full-queue submissions are rejected immediately with a 503, so a burst of
+ * logins or password changes queues up here rather than occupying every Tomcat thread
+ * that effort entry needs.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.password-hashing.threads:0}") int threads,
+                                   @Value("${app.password-hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${app.password-hashing.timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = timeoutMs;
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("password.hash").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hash").tag("operation", "matches").register(meterRegistry);
+        this.rejected = Counter.builder("password.hash.rejected").register(meterRegistry);
+        Gauge.builder("password.hash.queue", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return await(submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword))));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(submit(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword))));
+    }
+
+    // Bulk imports keep at most one task per pool thread in flight, so logins queued behind them wait for one hash at most
+    public List<String> encodeAll(List<String> rawPasswords) {
+        int window = executor.getMaximumPoolSize();
+        List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+        try {
+            for (int i = 0; i < rawPasswords.size(); i++) {
+                if (i >= window) {
+                    await(futures.get(i - window));
+                }
+                String rawPassword = rawPasswords.get(i);
+                futures.add(submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword))));
+            }
+            return futures.stream().map(this::await).toList();
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    // Checks all hashes in parallel and returns as soon as one matches
+    public boolean matchesAny(String rawPassword, List<String> encodedPasswords) {
+        List<String> hashes = encodedPasswords.stream().filter(Objects::nonNull).toList();
+        if (hashes.isEmpty()) {
+            return false;
+        }
+
+        CompletionService<Boolean> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Boolean>> futures = new ArrayList<>(hashes.size());
+        try {
+            for (String hash : hashes) {
+                futures.add(completion.submit(
+                        () -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, hash))));
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            for (int i = 0; i < futures.size(); i++) {
+                Future<Boolean> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    throw new ServiceBusyException("Password operation timed out, please retry shortly");
+                }
+                if (await(done)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Password check interrupted");
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+    }
+
+    private ServiceBusyException busy() {
+        rejected.increment();
+        return new ServiceBusyException("Too many password operations in progress, please retry shortly");
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceBusyException("Password operation timed out, please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Password operation interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -4,15 +4,17 @@ import com.ogon.timetracker.entities.PasswordHistoryEntity;
 import com.ogon.timetracker.entities.User;
 import com.ogon.timetracker.repositories.PasswordHistoryRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class PasswordHistoryService {
 
     private final PasswordHistoryRepository passwordHistoryRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
     public void recordPassword(User user, String encodedPassword) {
         PasswordHistoryEntity entry = PasswordHistoryEntity.builder()
@@ -22,12 +24,12 @@ public class PasswordHistoryService {
         passwordHistoryRepository.save(entry);
     }
 
+    // Current password plus the last 5, compared in parallel on the hashing pool
     public boolean matchesRecentPasswords(User user, String rawPassword) {
-        if (user.getPassword() != null && passwordEncoder.matches(rawPassword, user.getPassword())) {
-            return true;
-        }
-        return passwordHistoryRepository.findTop5ByUserIdOrderByCreatedAtDesc(user.getId())
-                .stream()
-                .anyMatch(entry -> passwordEncoder.matches(rawPassword, entry.getPasswordHash()));
+        List<String> hashes = new ArrayList<>();
+        hashes.add(user.getPassword());
+        passwordHistoryRepository.findTop5ByUserIdOrderByCreatedAtDesc(user.getId())
+                .forEach(entry -> hashes.add(entry.getPasswordHash()));
+        return passwordHashingExecutor.matchesAny(rawPassword, hashes);
     }
 }
@@ -2,15 +2,29 @@ package com.ogon.timetracker.services;
 
 import com.ogon.timetracker.entities.User;
 import com.ogon.timetracker.exceptions.PasswordPolicyViolationException;
+import com.ogon.timetracker.security.BreachedPasswordFilter;
+import com.ogon.timetracker.security.PasswordPatternMatcher;
+import com.ogon.timetracker.security.PasswordPatternMatcher.Kind;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
+/**
+ * Dictionary words, keyboard and alphabet sequences and the user's own name and email
+ * tokens are all matched in one pass over the password: the fixed patterns are compiled
+ * into a shared automaton at class load, the per-user tokens into a tiny one per call,
+ * and both are stepped together. Breached passwords are checked last against a
+ * memory-mapped Bloom filter, see {@link BreachedPasswordFilter}.
+ */
 @Service
+@RequiredArgsConstructor
 public class PasswordPolicyService {
 
     private static final int MIN_LENGTH = 16;
@@ -36,6 +50,11 @@ public class PasswordPolicyService {
             "zxcvbnm", "mnbvcxz"
     );
 
+    private static final int SEQUENCE_LENGTH = 4;
+    private static final PasswordPatternMatcher FIXED_PATTERNS = compileFixedPatterns();
+
+    private final BreachedPasswordFilter breachedPasswordFilter;
+
     public void validateForRegistration(String password, String firstName, String lastName, String email) {
         validateBaseRules(password, buildSensitiveTokens(firstName, lastName, email));
     }
@@ -75,20 +94,23 @@ public class PasswordPolicyService {
         }
 
         String normalized = password.toLowerCase(Locale.ROOT);
-        for (String token : sensitiveTokens) {
-            if (token.length() >= 3 && normalized.contains(token)) {
-                throw new PasswordPolicyViolationException("Password must not include your username or email id.");
-            }
+        List<String> userTokens = sensitiveTokens.stream().filter(token -> token.length() >= 3).toList();
+        PasswordPatternMatcher userPatterns = userTokens.isEmpty()
+                ? null
+                : PasswordPatternMatcher.compile(userTokens, Kind.SENSITIVE);
+        Kind match = FIXED_PATTERNS.strongestMatch(normalized, userPatterns);
+        if (match == Kind.SENSITIVE) {
+            throw new PasswordPolicyViolationException("Password must not include your username or email id.");
         }
-
-        if (containsSequentialPattern(normalized)) {
+        if (match == Kind.SEQUENCE) {
             throw new PasswordPolicyViolationException("Password must not contain sequential patterns like abcd, 1234, or qwerty.");
         }
+        if (match == Kind.DICTIONARY) {
+            throw new PasswordPolicyViolationException("Password must not contain dictionary words longer than four characters.");
+        }
 
-        for (String word : COMMON_DICTIONARY_WORDS) {
-            if (word.length() > 4 && normalized.contains(word)) {
-                throw new PasswordPolicyViolationException("Password must not contain dictionary words longer than four characters.");
-            }
+        if (breachedPasswordFilter.mightContain(password)) {
+            throw new PasswordPolicyViolationException("Password appears in a list of breached passwords. Please choose another one.");
         }
     }
 
@@ -119,34 +141,19 @@ public class PasswordPolicyService {
         }
     }
 
-    private boolean containsSequentialPattern(String normalized) {
-        for (int i = 0; i <= normalized.length() - 4; i++) {
-            String part = normalized.substring(i, i + 4);
-            if (isAsciiSequence(part)) {
-                return true;
-            }
-            for (String seq : SEQUENCES) {
-                if (seq.contains(part)) {
-                    return true;
-                }
+    // Every 4-character window of the sequences; plain abcd/1234 runs are windows of the first ones
+    private static PasswordPatternMatcher compileFixedPatterns() {
+        Map<String, Kind> patterns = new HashMap<>();
+        for (String word : COMMON_DICTIONARY_WORDS) {
+            if (word.length() > 4) {
+                patterns.put(word, Kind.DICTIONARY);
             }
         }
-        return false;
-    }
-
-    private boolean isAsciiSequence(String part) {
-        boolean allLetters = part.chars().allMatch(ch -> ch >= 'a' && ch <= 'z');
-        boolean allDigits = part.chars().allMatch(ch -> ch >= '0' && ch <= '9');
-        if (!allLetters && !allDigits) {
-            return false;
-        }
-        boolean ascending = true;
-        boolean descending = true;
-        for (int i = 1; i < part.length(); i++) {
-            int diff = part.charAt(i) - part.charAt(i - 1);
-            ascending &= diff == 1;
-            descending &= diff == -1;
+        for (String seq : SEQUENCES) {
+            for (int i = 0; i <= seq.length() - SEQUENCE_LENGTH; i++) {
+                patterns.put(seq.substring(i, i + SEQUENCE_LENGTH), Kind.SEQUENCE);
+            }
         }
-        return ascending || descending;
+        return PasswordPatternMatcher.compile(patterns);
     }
 }
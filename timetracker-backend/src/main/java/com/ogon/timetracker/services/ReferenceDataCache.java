@@ -0,0 +1,136 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.entities.ClientEntity;
+import com.ogon.timetracker.repositories.ClientRepository;
+import com.ogon.timetracker.repositories.ProjectRepository;
+import com.ogon.timetracker.repositories.TaskTypeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * In-memory copy of clients, projects and task types. Readers get an immutable snapshot;
+ * ClientController rebuilds it after every mutation and a scheduled refresh picks up
+ * changes made through other instances. Each resource carries an ETag derived from its
+ * content, so every instance hands out the same tag for the same data.
+ */
+@Slf4j
+@Service
+public class ReferenceDataCache {
+
+    private final ClientRepository clientRepository;
+    private final ProjectRepository projectRepository;
+    private final TaskTypeRepository taskTypeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataCache(ClientRepository clientRepository,
+                              ProjectRepository projectRepository,
+                              TaskTypeRepository taskTypeRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.clientRepository = clientRepository;
+        this.projectRepository = projectRepository;
+        this.taskTypeRepository = taskTypeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.reference-data.refresh-ms:300000}",
+            initialDelayString = "${app.reference-data.refresh-ms:300000}")
+    public void scheduledRefresh() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Reference data refresh failed, keeping version {}", snapshot != null ? snapshot.version() : 0, e);
+        }
+    }
+
+    // Synchronized so a slow rebuild can never overwrite a newer snapshot
+    public synchronized Snapshot rebuild() {
+        long version = snapshot != null ? snapshot.version() + 1 : 1;
+        Snapshot rebuilt = transactionTemplate.execute(status -> load(version));
+        snapshot = rebuilt;
+        return rebuilt;
+    }
+
+    private Snapshot load(long version) {
+        Map<String, String> clientNames = new LinkedHashMap<>();
+        for (ClientEntity client : clientRepository.findAll()) {
+            clientNames.put(client.getClientCd(), client.getClientName());
+        }
+        List<String> clientCodes = clientRepository.findAllClientCodes();
+
+        return new Snapshot(
+                version,
+                new Resource<>(Collections.unmodifiableList(clientCodes), etag(clientCodes)),
+                Collections.unmodifiableMap(clientNames),
+                groupByClient(projectRepository.findAllClientProjectNames()),
+                groupByClient(taskTypeRepository.findAllClientTaskNames()));
+    }
+
+    private Map<String, Resource<List<String>>> groupByClient(List<Object[]> rows) {
+        Map<String, List<String>> names = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            names.computeIfAbsent((String) row[0], key -> new ArrayList<>()).add((String) row[1]);
+        }
+        Map<String, Resource<List<String>>> resources = new HashMap<>();
+        names.forEach((clientCd, values) -> resources.put(clientCd, new Resource<>(Collections.unmodifiableList(values), etag(values))));
+        return Collections.unmodifiableMap(resources);
+    }
+
+    static String etag(List<String> values) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String value : values) {
+                digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record Resource<T>(T body, String etag) {
+    }
+
+    public record Snapshot(long version,
+                           Resource<List<String>> clientCodes,
+                           Map<String, String> clientNames,
+                           Map<String, Resource<List<String>>> projectsByClient,
+                           Map<String, Resource<List<String>>> taskTypesByClient) {
+
+        private static final Resource<List<String>> EMPTY = new Resource<>(List.of(), etag(List.of()));
+
+        public boolean hasClient(String clientCd) {
+            return clientNames.containsKey(clientCd);
+        }
+
+        // [clientCode, clientName]
+        public Resource<List<String>> client(String clientCd) {
+            List<String> client = List.of(clientCd, Objects.toString(clientNames.get(clientCd), ""));
+            return new Resource<>(client, etag(client));
+        }
+
+        public Resource<List<String>> projects(String clientCd) {
+            return projectsByClient.getOrDefault(clientCd, EMPTY);
+        }
+
+        public Resource<List<String>> taskTypes(String clientCd) {
+            return taskTypesByClient.getOrDefault(clientCd, EMPTY);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.entities.RefreshTokenEntity;
+import com.ogon.timetracker.repositories.RefreshTokenRepository;
+import com.ogon.timetracker.security.RevokedTokenFilter;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Refresh tokens are single use. Each one is recorded in refresh_tokens by its jti and,
+ * when presented, is atomically marked as replaced by its successor. Presenting a token
+ * that was already replaced means it was copied, so the whole family, every token rotated
+ * from the same login, is revoked and the holder has to log in again.
+ * Live tokens are told apart from revoked ones by {@link RevokedTokenFilter} first; only
+ * ids the filter reports as possibly revoked are read from the table.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedTokenFilter revokedTokenFilter;
+    private final JwtService jwtService;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter reuseDetected;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               RevokedTokenFilter revokedTokenFilter,
+                               JwtService jwtService,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revokedTokenFilter = revokedTokenFilter;
+        this.jwtService = jwtService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reuseDetected = Counter.builder("auth.refresh.reuse")
+                .description("Replayed refresh tokens whose family was revoked")
+                .register(meterRegistry);
+    }
+
+    /** Starts a new token family, on login. */
+    public String issue(Long userId) {
+        return store(userId, UUID.randomUUID().toString());
+    }
+
+    /** Replaces a presented refresh token with its successor; returns the new token. */
+    public String rotate(Claims claims) {
+        String jti = claims.getId();
+        String familyId = claims.get("fam", String.class);
+        if (jti == null || familyId == null) {
+            throw new BadCredentialsException("Refresh token is no longer valid. Please log in again.");
+        }
+        if (revokedTokenFilter.mightContain(jti)) {
+            RefreshTokenEntity stored = refreshTokenRepository.findById(jti).orElse(null);
+            if (stored == null || stored.isRevoked()) {
+                throw rejected(stored);
+            }
+        }
+
+        Long userId = Long.valueOf(claims.getSubject());
+        String next = UUID.randomUUID().toString();
+        Instant expiresAt = Instant.now().plus(JwtService.REFRESH_TOKEN_TTL);
+        Boolean rotated = transactionTemplate.execute(status -> {
+            if (refreshTokenRepository.markRotated(jti, next) == 0) {
+                return false;
+            }
+            refreshTokenRepository.save(newToken(next, familyId, userId, expiresAt));
+            return true;
+        });
+        if (!Boolean.TRUE.equals(rotated)) {
+            // Revoked on another instance, or used twice at once; the table has the answer
+            throw rejected(refreshTokenRepository.findById(jti).orElse(null));
+        }
+        revokedTokenFilter.add(jti);
+        return jwtService.generateRefreshToken(userId, next, familyId, expiresAt);
+    }
+
+    /** Revokes the family of the presented token, on logout. */
+    public void revokeFamily(Claims claims) {
+        String familyId = claims.get("fam", String.class);
+        if (familyId != null) {
+            revokeFamily(familyId);
+        }
+    }
+
+    /** Revokes every refresh token of the user, e.g. after a password change. */
+    public void revokeAllForUser(Long userId) {
+        List<String> revoked = transactionTemplate.execute(status -> {
+            List<String> jtis = refreshTokenRepository.findActiveJtisByUser(userId);
+            refreshTokenRepository.revokeAllForUser(userId);
+            return jtis;
+        });
+        revokedTokenFilter.addAll(revoked);
+    }
+
+    /** Whether a refresh token presented as a bearer token has been revoked. */
+    public boolean isRevoked(String jti) {
+        return revokedTokenFilter.mightContain(jti)
+                && refreshTokenRepository.findById(jti).map(RefreshTokenEntity::isRevoked).orElse(true);
+    }
+
+    @Scheduled(cron = "${app.auth.refresh-tokens.purge-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        Integer deleted = transactionTemplate.execute(status -> refreshTokenRepository.deleteExpired(Instant.now()));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String store(Long userId, String familyId) {
+        String jti = UUID.randomUUID().toString();
+        Instant expiresAt = Instant.now().plus(JwtService.REFRESH_TOKEN_TTL);
+        refreshTokenRepository.save(newToken(jti, familyId, userId, expiresAt));
+        return jwtService.generateRefreshToken(userId, jti, familyId, expiresAt);
+    }
+
+    private void revokeFamily(String familyId) {
+        List<String> revoked = transactionTemplate.execute(status -> {
+            List<String> jtis = refreshTokenRepository.findActiveJtisByFamily(familyId);
+            refreshTokenRepository.revokeFamily(familyId);
+            return jtis;
+        });
+        revokedTokenFilter.addAll(revoked);
+    }
+
+    private BadCredentialsException rejected(RefreshTokenEntity stored) {
+        if (stored != null && stored.getReplacedBy() != null) {
+            log.warn("Refresh token {} of user {} was replayed; revoking family {}",
+                    stored.getJti(), stored.getUserId(), stored.getFamilyId());
+            reuseDetected.increment();
+            revokeFamily(stored.getFamilyId());
+        }
+        return new BadCredentialsException("Refresh token is no longer valid. Please log in again.");
+    }
+
+    private static RefreshTokenEntity newToken(String jti, String familyId, Long userId, Instant expiresAt) {
+        return RefreshTokenEntity.builder()
+                .jti(jti)
+                .familyId(familyId)
+                .userId(userId)
+                .issuedAt(Instant.now())
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,160 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.entities.IdBlockSequenceEntity;
+import com.ogon.timetracker.exceptions.ServiceBusyException;
+import com.ogon.timetracker.repositories.IdBlockSequenceRepository;
+import com.ogon.timetracker.repositories.TaskRowRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out weekly row-group ids (task_rows.row_id) using hi/lo blocks. Each node reserves
+ * a block from the id_block_sequences row under a row lock, then serves ids from memory
+ * with a CAS, so ids never collide across threads or nodes and only one allocation per
+ * block touches the database. Callers run inside their write transaction and already hold
+ * a pool connection, so they never reserve a block themselves: a single background thread
+ * reserves the next block once the current one runs low, and a caller that still finds
+ * none ready waits a bounded time for it and then gets a 503 instead of stalling the pool.
+ */
+@Service
+public class RowIdAllocator {
+
+    private static final String SEQUENCE_NAME = "task_row_id";
+
+    private final IdBlockSequenceRepository sequenceRepository;
+    private final TaskRowRepository taskRowRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+    private final long lowWaterMark;
+    private final long reserveTimeoutMs;
+    private final ExecutorService reserver;
+
+    private final AtomicReference<Block> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Block>> upcoming = new AtomicReference<>();
+
+    public RowIdAllocator(IdBlockSequenceRepository sequenceRepository,
+                          TaskRowRepository taskRowRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.row-id.block-size:100}") int blockSize,
+                          @Value("${app.row-id.reserve-timeout-ms:5000}") long reserveTimeoutMs) {
+        this.sequenceRepository = sequenceRepository;
+        this.taskRowRepository = taskRowRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.blockSize = blockSize;
+        this.lowWaterMark = Math.max(1, blockSize / 4);
+        this.reserveTimeoutMs = reserveTimeoutMs;
+        this.reserver = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "row-id-reserver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // The first block is reserved while the application starts, before any write needs it
+    @PostConstruct
+    void reserveFirstBlock() {
+        prefetch();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        reserver.shutdownNow();
+    }
+
+    public long nextRowId() {
+        while (true) {
+            Block block = current.get();
+            if (block != null) {
+                long id = block.next.getAndIncrement();
+                if (id < block.limit) {
+                    // Exactly one caller crosses the mark, and it only queues the reservation
+                    if (block.limit - id == lowWaterMark) {
+                        prefetch();
+                    }
+                    return id;
+                }
+            }
+            advance(block);
+        }
+    }
+
+    // Swaps in the reserved block; callers racing on the same exhausted block all wait for it
+    private void advance(Block exhausted) {
+        CompletableFuture<Block> reservation = prefetch();
+        Block next;
+        try {
+            next = reservation.get(reserveTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceBusyException("Row ids are being reserved, please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Row id reservation interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not reserve a block of row ids", e.getCause());
+        }
+        if (current.compareAndSet(exhausted, next)) {
+            upcoming.compareAndSet(reservation, null);
+        }
+    }
+
+    // Returns the pending reservation, queuing one when there is none
+    private CompletableFuture<Block> prefetch() {
+        while (true) {
+            CompletableFuture<Block> pending = upcoming.get();
+            if (pending != null) {
+                return pending;
+            }
+            CompletableFuture<Block> started = new CompletableFuture<>();
+            if (upcoming.compareAndSet(null, started)) {
+                reserver.execute(() -> {
+                    try {
+                        started.complete(reserveBlock());
+                    } catch (RuntimeException e) {
+                        // Dropped, so the next caller queues a fresh attempt
+                        upcoming.compareAndSet(started, null);
+                        started.completeExceptionally(e);
+                    }
+                });
+                return started;
+            }
+        }
+    }
+
+    private Block reserveBlock() {
+        try {
+            return transactionTemplate.execute(status -> doReserveBlock());
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the sequence row first; it exists now, so lock and reserve again
+            return transactionTemplate.execute(status -> doReserveBlock());
+        }
+    }
+
+    private Block doReserveBlock() {
+        IdBlockSequenceEntity sequence = sequenceRepository.findForUpdate(SEQUENCE_NAME)
+                .orElseGet(() -> sequenceRepository.saveAndFlush(
+                        new IdBlockSequenceEntity(SEQUENCE_NAME, taskRowRepository.getNextRowId())));
+
+        long start = sequence.getNextValue();
+        sequence.setNextValue(start + blockSize);
+        return new Block(start, start + blockSize);
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long limit;
+
+        private Block(long start, long limit) {
+            this.next = new AtomicLong(start);
+            this.limit = limit;
+        }
+    }
+}
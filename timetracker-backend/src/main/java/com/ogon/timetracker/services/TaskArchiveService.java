@@ -0,0 +1,235 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.dto.TaskArchiveJobDTO;
+import com.ogon.timetracker.entities.MaintenanceStateEntity;
+import com.ogon.timetracker.exceptions.RuntimeConflictException;
+import com.ogon.timetracker.repositories.MaintenanceStateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves the task cells of closed years into task_cells_archive, a compressed table with
+ * the same columns that no application query reads. Its row ids still point at task_rows,
+ * and through them at task_terms, so audits can join it like the live table. When
+ * task_cells is partitioned, every month that ends by the archived year is swapped out
+ * whole with EXCHANGE PARTITION and moved from the swapped-out table, which is kept
+ * until it is empty so a failed run is finished by the next one; the cells left in
+ * task_cells are moved in id order. Cells move in batches of at most
+ * app.task-archive.batch-size, each copied and deleted in its own short transaction.
+ * Rollups of archived days stay in place, so reports over those years keep their totals.
+ * The last day of the newest archived year is kept in maintenance_state, and days on or
+ * before it can no longer be written or rebuilt on any instance.
+ * <p>
+ * A run goes on in the background; its state and progress are kept in maintenance_state
+ * too, so every instance reports it and none starts a second run while it goes on.
+ */
+@Slf4j
+@Service
+public class TaskArchiveService {
+
+    static final String ARCHIVE_TABLE = "task_cells_archive";
+    private static final String STAGING_TABLE = "task_cells_archiving";
+    private static final String COLUMNS = "id, row_id, work_date, hours";
+    static final String ARCHIVED_THROUGH = "task-archive.archived-through";
+    static final String ARCHIVE_JOB = "task-archive.job";
+    private static final String RUNNING = "RUNNING";
+    private static final String DONE = "DONE";
+    private static final String FAILED = "FAILED";
+    // A run saves its progress after every batch, so one silent for this long died with its instance
+    private static final Duration STALE_AFTER = Duration.ofMinutes(10);
+    private static final int MAX_ERROR_LENGTH = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskPartitionService taskPartitionService;
+    private final MaintenanceStateRepository maintenanceStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public TaskArchiveService(JdbcTemplate jdbcTemplate,
+                              TaskPartitionService taskPartitionService,
+                              MaintenanceStateRepository maintenanceStateRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.task-archive.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskPartitionService = taskPartitionService;
+        this.maintenanceStateRepository = maintenanceStateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public boolean isArchived(LocalDate workDate) {
+        LocalDate through = getArchivedThrough();
+        return through != null && workDate != null && !workDate.isAfter(through);
+    }
+
+    public LocalDate getArchivedThrough() {
+        return archivedThrough(maintenanceStateRepository.findById(ARCHIVED_THROUGH));
+    }
+
+    static LocalDate archivedThrough(Optional<MaintenanceStateEntity> state) {
+        return state.map(MaintenanceStateEntity::getValue).map(LocalDate::parse).orElse(null);
+    }
+
+    /** Starts archiving every task cell dated in the given closed year or before it, in the background. */
+    public TaskArchiveJobDTO startArchive(int year) {
+        if (!taskPartitionService.isMySql()) {
+            throw new IllegalStateException("Archiving task cells needs MySQL");
+        }
+        if (year >= LocalDate.now().getYear()) {
+            throw new IllegalArgumentException("Only closed years can be archived");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Optional<MaintenanceStateEntity> job = maintenanceStateRepository.findForUpdate(ARCHIVE_JOB);
+            if (job.isPresent() && isRunning(job.get())) {
+                throw new RuntimeConflictException("Task cells are already being archived");
+            }
+            saveJob(RUNNING, year, 0, null);
+        });
+        Thread worker = new Thread(() -> runArchive(year), "task-archive");
+        worker.setDaemon(true);
+        worker.start();
+        return getJob();
+    }
+
+    /** State and progress of the latest archive run, IDLE when there has been none. */
+    public TaskArchiveJobDTO getJob() {
+        LocalDate through = getArchivedThrough();
+        TaskArchiveJobDTO.TaskArchiveJobDTOBuilder job = TaskArchiveJobDTO.builder()
+                .state("IDLE")
+                .archivedThrough(through == null ? null : through.toString());
+        maintenanceStateRepository.findById(ARCHIVE_JOB).ifPresent(state -> {
+            String[] parts = state.getValue().split(";", 4);
+            boolean stale = RUNNING.equals(parts[0]) && !isRunning(state);
+            job.state(stale ? FAILED : parts[0])
+                    .year(Integer.parseInt(parts[1]))
+                    .archivedCells(Long.parseLong(parts[2]))
+                    .error(stale ? "The run stopped without finishing; start it again to move the rest"
+                            : parts[3].isEmpty() ? null : parts[3])
+                    .updatedAt(state.getUpdatedAt().toString());
+        });
+        return job.build();
+    }
+
+    private void runArchive(int year) {
+        AtomicLong moved = new AtomicLong();
+        try {
+            archiveThrough(year, moved);
+            saveJob(DONE, year, moved.get(), null);
+            log.info("Archived {} task cells dated through {}", moved.get(), LocalDate.of(year, 12, 31));
+        } catch (RuntimeException e) {
+            log.error("Archiving task cells through {} failed after moving {}", year, moved.get(), e);
+            saveJob(FAILED, year, moved.get(), e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+        }
+    }
+
+    private void archiveThrough(int year, AtomicLong moved) {
+        LocalDate through = LocalDate.of(year, 12, 31);
+        LocalDate end = through.plusDays(1);
+        raiseArchivedThrough(through);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + ARCHIVE_TABLE + " ("
+                + "id BIGINT NOT NULL, "
+                + "row_id BIGINT NOT NULL, "
+                + "work_date DATE NOT NULL, "
+                + "hours DOUBLE, "
+                + "PRIMARY KEY (id), "
+                + "KEY idx_task_cells_archive_work_date (work_date), "
+                + "KEY idx_task_cells_archive_row_id (row_id)"
+                + ") ENGINE=InnoDB ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8");
+
+        moveStaging(year, moved);
+        for (TaskPartitionService.TaskPartition partition : taskPartitionService.partitions()) {
+            if (partition.upperBound() != null && !partition.upperBound().isAfter(end)) {
+                exchange(partition.name(), year, moved);
+            }
+        }
+        moveInBatches(TaskPartitionService.TABLE, end, year, moved);
+    }
+
+    // Committed before any cell moves: the write lock waits for writers that read the old
+    // boundary to commit, and every writer after it reads the new one
+    private void raiseArchivedThrough(LocalDate through) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDate current = archivedThrough(maintenanceStateRepository.findForUpdate(ARCHIVED_THROUGH));
+            if (current == null || current.isBefore(through)) {
+                maintenanceStateRepository.save(
+                        new MaintenanceStateEntity(ARCHIVED_THROUGH, through.toString(), Instant.now()));
+            }
+        });
+    }
+
+    // The emptied partition stays in place; it holds no rows and is pruned like the others
+    private void exchange(String partition, int year, AtomicLong moved) {
+        jdbcTemplate.execute("CREATE TABLE " + STAGING_TABLE + " LIKE " + TaskPartitionService.TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + STAGING_TABLE + " REMOVE PARTITIONING");
+        jdbcTemplate.execute("ALTER TABLE " + TaskPartitionService.TABLE
+                + " EXCHANGE PARTITION " + partition + " WITH TABLE " + STAGING_TABLE);
+        moveStaging(year, moved);
+    }
+
+    private void moveStaging(int year, AtomicLong moved) {
+        if (!tableExists(STAGING_TABLE)) {
+            return;
+        }
+        moveInBatches(STAGING_TABLE, null, year, moved);
+        jdbcTemplate.execute("DROP TABLE " + STAGING_TABLE);
+    }
+
+    // Walks the table by id and moves the cells dated before end, or all of them without an
+    // end. Only cells already copied are deleted, so a failed batch leaves every cell in one
+    // of the tables and the next run picks it up again.
+    private void moveInBatches(String table, LocalDate end, int year, AtomicLong moved) {
+        long lastId = 0;
+        while (true) {
+            List<Long> ids = end == null
+                    ? jdbcTemplate.queryForList("SELECT id FROM " + table
+                            + " WHERE id > ? ORDER BY id LIMIT ?", Long.class, lastId, batchSize)
+                    : jdbcTemplate.queryForList("SELECT id FROM " + table
+                            + " WHERE id > ? AND work_date < ? ORDER BY id LIMIT ?", Long.class, lastId, end, batchSize);
+            if (ids.isEmpty()) {
+                return;
+            }
+            String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+            Object[] args = ids.toArray();
+            Integer deleted = transactionTemplate.execute(status -> {
+                jdbcTemplate.update("INSERT IGNORE INTO " + ARCHIVE_TABLE + " (" + COLUMNS + ") "
+                        + "SELECT " + COLUMNS + " FROM " + table + " WHERE id IN (" + in + ")", args);
+                return jdbcTemplate.update("DELETE c FROM " + table + " c "
+                        + "JOIN " + ARCHIVE_TABLE + " a ON a.id = c.id "
+                        + "WHERE c.id IN (" + in + ")", args);
+            });
+            moved.addAndGet(deleted == null ? 0 : deleted);
+            lastId = ids.get(ids.size() - 1);
+            saveJob(RUNNING, year, moved.get(), null);
+        }
+    }
+
+    private void saveJob(String state, int year, long moved, String error) {
+        String detail = error == null ? "" : error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH));
+        maintenanceStateRepository.save(new MaintenanceStateEntity(
+                ARCHIVE_JOB, state + ";" + year + ";" + moved + ";" + detail, Instant.now()));
+    }
+
+    private static boolean isRunning(MaintenanceStateEntity job) {
+        return job.getValue().startsWith(RUNNING + ";")
+                && job.getUpdatedAt().isAfter(Instant.now().minus(STALE_AFTER));
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.TABLES
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?""", Integer.class, table);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,157 @@
+package com.ogon.timetracker.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Monthly RANGE COLUMNS partitioning of task_cells on work_date, on MySQL. Partition
+ * pYYYYMM holds the days of that month and pmax catches anything past the last one, so a
+ * range predicate on the raw work_date column, which is how every task query filters,
+ * only opens the months it covers. The table is converted at startup when partitioning is
+ * enabled and it is not partitioned yet; this rebuilds it and moves work_date into the
+ * primary key, which MySQL requires of a partitioning column, so it belongs in a
+ * maintenance window. A nightly job then splits pmax so the coming months always exist
+ * before the first hours are booked on them. Other databases are left as they are.
+ */
+@Slf4j
+@Service
+public class TaskPartitionService {
+
+    static final String TABLE = "task_cells";
+    private static final String OVERFLOW_PARTITION = "pmax";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final boolean mySql;
+
+    public TaskPartitionService(JdbcTemplate jdbcTemplate,
+                                @Value("${app.task-partitions.enabled:false}") boolean enabled,
+                                @Value("${app.task-partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        this.mySql = product != null && (product.toLowerCase(Locale.ROOT).contains("mysql")
+                || product.toLowerCase(Locale.ROOT).contains("mariadb"));
+    }
+
+    @PostConstruct
+    void partition() {
+        if (!enabled) {
+            return;
+        }
+        if (!mySql) {
+            log.warn("Task partitioning needs MySQL, leaving {} unpartitioned", TABLE);
+            return;
+        }
+        if (partitions().isEmpty()) {
+            convert();
+        } else {
+            createUpcomingPartitions();
+        }
+    }
+
+    public boolean isMySql() {
+        return mySql;
+    }
+
+    @Scheduled(cron = "${app.task-partitions.cron:0 15 2 * * *}")
+    public synchronized void createUpcomingPartitions() {
+        if (!enabled || !mySql) {
+            return;
+        }
+        List<TaskPartition> partitions = partitions();
+        if (partitions.isEmpty()) {
+            return;
+        }
+        TaskPartition last = partitions.get(partitions.size() - 1);
+        LocalDate next = last.upperBound() != null
+                ? last.upperBound()
+                : partitions.size() > 1 ? partitions.get(partitions.size() - 2).upperBound() : horizon();
+        List<LocalDate> months = monthsBetween(next, horizon());
+        if (months.isEmpty()) {
+            return;
+        }
+        if (last.upperBound() == null) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + last.name()
+                    + " INTO (" + definitions(months) + ", " + overflowDefinition() + ")");
+        } else {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD PARTITION (" + definitions(months) + ")");
+        }
+        log.info("Added {} monthly partitions to {}, through {}", months.size(), TABLE,
+                months.get(months.size() - 1).format(PARTITION_NAME));
+    }
+
+    /** Partitions of task_cells in order, the overflow one last with no upper bound; empty when unpartitioned. */
+    List<TaskPartition> partitions() {
+        return jdbcTemplate.query("""
+                        SELECT PARTITION_NAME, PARTITION_DESCRIPTION
+                        FROM information_schema.PARTITIONS
+                        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL
+                        ORDER BY PARTITION_ORDINAL_POSITION""",
+                (rs, rowNum) -> new TaskPartition(rs.getString(1), toBound(rs.getString(2))),
+                TABLE);
+    }
+
+    // Partitions start at the month of the oldest day, which also takes everything before it
+    private synchronized void convert() {
+        LocalDate oldest = jdbcTemplate.queryForObject("SELECT MIN(work_date) FROM " + TABLE, LocalDate.class);
+        LocalDate first = (oldest != null ? oldest : LocalDate.now()).withDayOfMonth(1);
+        List<LocalDate> months = monthsBetween(first, horizon());
+        log.info("Partitioning {} by month from {}, this rebuilds the table", TABLE, first.format(PARTITION_NAME));
+        jdbcTemplate.execute("ALTER TABLE " + TABLE
+                + " DROP PRIMARY KEY, ADD PRIMARY KEY (id, work_date)"
+                + " PARTITION BY RANGE COLUMNS(work_date) ("
+                + definitions(months) + ", " + overflowDefinition() + ")");
+        log.info("Partitioned {} into {} monthly partitions", TABLE, months.size());
+    }
+
+    private LocalDate horizon() {
+        return LocalDate.now().withDayOfMonth(1).plusMonths(monthsAhead);
+    }
+
+    private static List<LocalDate> monthsBetween(LocalDate first, LocalDate last) {
+        List<LocalDate> months = new ArrayList<>();
+        for (LocalDate month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    private static String definitions(List<LocalDate> months) {
+        return months.stream()
+                .map(month -> "PARTITION " + month.format(PARTITION_NAME)
+                        + " VALUES LESS THAN ('" + month.plusMonths(1) + "')")
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String overflowDefinition() {
+        return "PARTITION " + OVERFLOW_PARTITION + " VALUES LESS THAN (MAXVALUE)";
+    }
+
+    // information_schema quotes the bound, as in '2025-02-01'
+    private static LocalDate toBound(String description) {
+        if (description == null || description.equalsIgnoreCase("MAXVALUE")) {
+            return null;
+        }
+        return LocalDate.parse(description.replace("'", "").trim());
+    }
+
+    record TaskPartition(String name, LocalDate upperBound) {
+    }
+}
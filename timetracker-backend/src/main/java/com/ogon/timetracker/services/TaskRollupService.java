@@ -0,0 +1,169 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.dto.RollupVerificationDTO;
+import com.ogon.timetracker.dto.TaskDayKey;
+import com.ogon.timetracker.entities.TaskDailyRollupEntity;
+import com.ogon.timetracker.exceptions.RuntimeConflictException;
+import com.ogon.timetracker.repositories.MaintenanceStateRepository;
+import com.ogon.timetracker.repositories.TaskDailyRollupRepository;
+import com.ogon.timetracker.repositories.TaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class TaskRollupService {
+
+    private static final int REBUILD_WINDOW_DAYS = 31;
+    private static final int MAX_REPORTED_DRIFTS = 100;
+    private static final double TOLERANCE = 0.0001;
+
+    private final TaskRepository taskRepository;
+    private final TaskDailyRollupRepository rollupRepository;
+    private final MaintenanceStateRepository maintenanceStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DateTimeFormatter dbFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    public TaskRollupService(TaskRepository taskRepository,
+                             TaskDailyRollupRepository rollupRepository,
+                             MaintenanceStateRepository maintenanceStateRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.rollupRepository = rollupRepository;
+        this.maintenanceStateRepository = maintenanceStateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Recomputes the rollup rows of the given user-days from tasks. Must be called inside
+     * the transaction that changed those tasks, after the changes have been flushed.
+     * Archived days are refused, since their tasks have left task_cells.
+     */
+    public void refresh(Collection<TaskDayKey> days) {
+        Map<Long, Set<LocalDate>> datesByUser = days.stream()
+                .filter(TaskDayKey::isComplete)
+                .collect(Collectors.groupingBy(TaskDayKey::userId,
+                        Collectors.mapping(TaskDayKey::workDate, Collectors.toSet())));
+        if (datesByUser.isEmpty()) {
+            return;
+        }
+
+        LocalDate archivedThrough = TaskArchiveService.archivedThrough(
+                maintenanceStateRepository.findForShare(TaskArchiveService.ARCHIVED_THROUGH));
+        if (archivedThrough != null && datesByUser.values().stream()
+                .flatMap(Set::stream)
+                .anyMatch(date -> !date.isAfter(archivedThrough))) {
+            throw new RuntimeConflictException("Hours through " + archivedThrough
+                    + " are archived and can no longer be changed");
+        }
+
+        datesByUser.forEach((userId, dates) -> {
+            rollupRepository.deleteForUserAndDates(userId, dates);
+            rollupRepository.insertForUserAndDates(userId, dates);
+        });
+    }
+
+    // Recomputes every rollup row in the range, one month-sized transaction at a time;
+    // archived days are skipped and keep the rollups they had when their cells were moved
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        int rows = 0;
+        LocalDate windowStart = unarchived(startDate, TaskArchiveService.archivedThrough(
+                maintenanceStateRepository.findById(TaskArchiveService.ARCHIVED_THROUGH)));
+        while (!windowStart.isAfter(endDate)) {
+            LocalDate from = windowStart;
+            LocalDate to = windowStart.plusDays(REBUILD_WINDOW_DAYS - 1).isAfter(endDate)
+                    ? endDate
+                    : windowStart.plusDays(REBUILD_WINDOW_DAYS - 1);
+            Integer inserted = transactionTemplate.execute(status -> {
+                // Re-read under the lock, in case an archive run raised the boundary meanwhile
+                LocalDate rebuildFrom = unarchived(from, TaskArchiveService.archivedThrough(
+                        maintenanceStateRepository.findForShare(TaskArchiveService.ARCHIVED_THROUGH)));
+                if (rebuildFrom.isAfter(to)) {
+                    return 0;
+                }
+                rollupRepository.deleteForRange(rebuildFrom, to);
+                return rollupRepository.insertForRange(rebuildFrom, to);
+            });
+            rows += inserted != null ? inserted : 0;
+            windowStart = to.plusDays(1);
+        }
+        return rows;
+    }
+
+    private static LocalDate unarchived(LocalDate date, LocalDate archivedThrough) {
+        return archivedThrough != null && !date.isAfter(archivedThrough) ? archivedThrough.plusDays(1) : date;
+    }
+
+    // Full rebuild when the rollup table has never been populated (first deploy)
+    public void initializeIfEmpty() {
+        if (rollupRepository.count() > 0) {
+            return;
+        }
+        rebuildAll();
+    }
+
+    public void rebuildAll() {
+        List<Object[]> bounds = taskRepository.findWorkDateBounds();
+        if (bounds.isEmpty() || bounds.get(0)[0] == null) {
+            return;
+        }
+        LocalDate min = (LocalDate) bounds.get(0)[0];
+        LocalDate max = (LocalDate) bounds.get(0)[1];
+        int rows = rebuild(min, max);
+        log.info("Rebuilt {} task rollup rows for {} - {}", rows, min, max);
+    }
+
+    public RollupVerificationDTO verify(LocalDate startDate, LocalDate endDate) {
+        Map<RollupKey, Double> expected = new HashMap<>();
+        for (Object[] row : taskRepository.sumByDailyRollupGroup(startDate, endDate)) {
+            RollupKey key = new RollupKey((Long) row[0], (LocalDate) row[1], (Long) row[2], (Long) row[3],
+                    (String) row[4], (Boolean) row[5]);
+            expected.put(key, ((Number) row[6]).doubleValue());
+        }
+
+        Map<RollupKey, Double> actual = new HashMap<>();
+        for (TaskDailyRollupEntity rollup : rollupRepository.findByWorkDateBetween(startDate, endDate)) {
+            actual.merge(RollupKey.of(rollup), rollup.getHours() != null ? rollup.getHours() : 0, Double::sum);
+        }
+
+        List<String> drifts = new ArrayList<>();
+        int driftCount = 0;
+        Set<RollupKey> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        for (RollupKey key : keys) {
+            double want = expected.getOrDefault(key, 0.0);
+            double have = actual.getOrDefault(key, 0.0);
+            if (!expected.containsKey(key) || !actual.containsKey(key) || Math.abs(want - have) > TOLERANCE) {
+                driftCount++;
+                if (drifts.size() < MAX_REPORTED_DRIFTS) {
+                    drifts.add(key + " expected=" + want + " rollup=" + have);
+                }
+            }
+        }
+
+        return RollupVerificationDTO.builder()
+                .startDate(startDate.format(dbFormatter))
+                .endDate(endDate.format(dbFormatter))
+                .expectedGroups(expected.size())
+                .rollupGroups(actual.size())
+                .driftCount(driftCount)
+                .drifts(drifts)
+                .build();
+    }
+
+    private record RollupKey(Long userId, LocalDate workDate, Long clientId, Long projectId,
+                             String ticket, Boolean billable) {
+
+        static RollupKey of(TaskDailyRollupEntity rollup) {
+            return new RollupKey(rollup.getUserId(), rollup.getWorkDate(), rollup.getClientId(),
+                    rollup.getProjectId(), rollup.getTicket(), rollup.getBillable());
+        }
+    }
+}
@@ -1,16 +1,16 @@
 package com.ogon.timetracker.services;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ogon.timetracker.dto.TaskDTO;
-import com.ogon.timetracker.entities.TaskEntity;
-import com.ogon.timetracker.projections.MergedEffortProjections;
+import com.ogon.timetracker.entities.TicketEntity;
+import com.ogon.timetracker.projections.WeeklyEffortCellProjections;
+import com.ogon.timetracker.rendererer.TimeTrackerRenderer;
 import com.ogon.timetracker.repositories.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Service
@@ -19,74 +19,111 @@ public class TaskService {
     @Autowired
     private TaskRepository taskRepository;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private WeeklyEffortCache weeklyEffortCache;
+
+    @Autowired
+    private TicketRegistryService ticketRegistryService;
+
+    @Autowired
+    private TaskTermDictionary taskTermDictionary;
+
+    private final DateTimeFormatter displayFormatter = DateTimeFormatter.ofPattern("d MMM (EEE)", Locale.ENGLISH);
 
     public List<TaskDTO> getMergedEffortsByDate(Long userId,
                                                 LocalDate startDate,
                                                 LocalDate endDate) {
+        // An inverted range has no days, as the query over it has no rows
+        if (endDate.isBefore(startDate)) {
+            return List.of();
+        }
+        return weeklyEffortCache.get(userId, startDate, endDate,
+                () -> loadMergedEffortsByDate(userId, startDate, endDate));
+    }
+
+    private List<TaskDTO> loadMergedEffortsByDate(Long userId,
+                                                  LocalDate startDate,
+                                                  LocalDate endDate) {
 
-        List<MergedEffortProjections> projections =
+        List<WeeklyEffortCellProjections> cells =
                 taskRepository.getMergedEffortsByDate(userId, startDate, endDate);
 
-        List<TaskDTO> results = new ArrayList<>();
+        // Rows show each ticket's current description from the registry, not the one they were saved with
+        Map<String, String> ticketDescriptions = ticketRegistryService.descriptions(
+                cells.stream().map(WeeklyEffortCellProjections::getTicket).toList());
 
-        DateTimeFormatter inputFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        DateTimeFormatter displayFormatter = DateTimeFormatter.ofPattern("d MMM (EEE)", Locale.ENGLISH);
+        // UI-friendly labels like "10 Nov (Mon)", formatted once per day of the range
+        String[] labels = dayLabels(startDate, endDate);
 
-        for (MergedEffortProjections p : projections) {
-            if (p.getHoursByDate() == null || p.getHoursByDate().isBlank()) {
-                continue;
+        List<TaskDTO> results = new ArrayList<>();
+        WeeklyEffortCellProjections rowStart = null;
+        double[] hours = null;
+
+        // Cells arrive ordered by weekly row, so each row is pivoted into a day array in one pass
+        for (WeeklyEffortCellProjections cell : cells) {
+            if (rowStart == null || !sameRow(rowStart, cell)) {
+                if (rowStart != null) {
+                    results.add(toWeeklyRow(userId, rowStart, hours, labels, ticketDescriptions));
+                }
+                rowStart = cell;
+                hours = new double[labels.length];
+                Arrays.fill(hours, Double.NaN);
             }
+            int day = (int) ChronoUnit.DAYS.between(startDate, cell.getWorkDate());
+            hours[day] = cell.getHours() != null ? cell.getHours() : 0;
+        }
+        if (rowStart != null) {
+            results.add(toWeeklyRow(userId, rowStart, hours, labels, ticketDescriptions));
+        }
 
-            try {
-                // Example: {"03-11-2025": 8.0, "04-11-2025": 2.5}
-                Map<String, Double> rawHoursMap = objectMapper.readValue(
-                        p.getHoursByDate(),
-                        new TypeReference<Map<String, Double>>() {}
-                );
-
-                //  Convert date keys to UI-friendly format like "10 Nov (Mon)"
-                Map<String, Double> formattedHoursMap = new LinkedHashMap<>();
-                for (Map.Entry<String, Double> entry : rawHoursMap.entrySet()) {
-                    try {
-                        LocalDate parsedDate = LocalDate.parse(entry.getKey(), inputFormatter);
-                        String formattedDate = parsedDate.format(displayFormatter);
-                        formattedHoursMap.put(formattedDate, entry.getValue());
-                    } catch (Exception dateEx) {
-                        System.err.println("⚠️ Invalid date format: " + entry.getKey());
-                        formattedHoursMap.put(entry.getKey(), entry.getValue());
-                    }
-                }
+        return results;
+    }
 
-                //  Calculate total hours
-                double totalHours = formattedHoursMap.values().stream()
-                        .mapToDouble(Double::doubleValue)
-                        .sum();
-
-                // Build DTO (not Entity)
-                TaskDTO dto = TaskDTO.builder()
-                        .rowId(p.getRowId())
-                        .userId(userId)
-                        .client(p.getClient())
-                        .project(p.getProject())
-                        .ticket(p.getTicket())
-                        .ticketDescription(p.getTicketDescription())
-                        .category(p.getCategory())
-                        .billable(p.getBillable())
-                        .description(p.getDescription())
-                        .hours(totalHours)
-                        .hoursByDate(formattedHoursMap)
-                        .build();
-
-                results.add(dto);
-
-            } catch (Exception ex) {
-                System.err.println("Failed to parse hoursByDate for ticket "
-                        + p.getTicket() + ": " + ex.getMessage());
+    private String[] dayLabels(LocalDate startDate, LocalDate endDate) {
+        String[] labels = new String[(int) ChronoUnit.DAYS.between(startDate, endDate) + 1];
+        for (int day = 0; day < labels.length; day++) {
+            labels[day] = startDate.plusDays(day).format(displayFormatter);
+        }
+        return labels;
+    }
+
+    private TaskDTO toWeeklyRow(Long userId, WeeklyEffortCellProjections row, double[] hours, String[] labels,
+                                Map<String, String> ticketDescriptions) {
+        // NaN marks days without a cell, so they stay out of hoursByDate as before
+        Map<String, Double> hoursByDate = new LinkedHashMap<>();
+        double totalHours = 0;
+        for (int day = 0; day < hours.length; day++) {
+            if (!Double.isNaN(hours[day])) {
+                hoursByDate.put(labels[day], hours[day]);
+                totalHours += hours[day];
             }
         }
 
-        return results;
+        return TaskDTO.builder()
+                .rowId(row.getRowId())
+                .userId(userId)
+                .client(taskTermDictionary.decode(row.getClientId()))
+                .project(taskTermDictionary.decode(row.getProjectId()))
+                .ticket(row.getTicket())
+                .ticketDescription(ticketDescriptions.getOrDefault(
+                        TicketEntity.keyOf(row.getTicket()), row.getTicketDescription()))
+                .category(taskTermDictionary.decode(row.getCategoryId()))
+                .billable(TimeTrackerRenderer.toBillableLabel(row.getBillable()))
+                .description(row.getDescription())
+                .hours(totalHours)
+                .hoursByDate(hoursByDate)
+                .build();
+    }
+
+    private static boolean sameRow(WeeklyEffortCellProjections a, WeeklyEffortCellProjections b) {
+        return Objects.equals(a.getRowId(), b.getRowId())
+                && Objects.equals(a.getClientId(), b.getClientId())
+                && Objects.equals(a.getProjectId(), b.getProjectId())
+                && Objects.equals(a.getTicket(), b.getTicket())
+                && Objects.equals(a.getTicketDescription(), b.getTicketDescription())
+                && Objects.equals(a.getCategoryId(), b.getCategoryId())
+                && Objects.equals(a.getBillable(), b.getBillable())
+                && Objects.equals(a.getDescription(), b.getDescription());
     }
 
 }
@@ -0,0 +1,235 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.entities.LegacyTaskEntity;
+import com.ogon.timetracker.entities.TaskCellEntity;
+import com.ogon.timetracker.entities.TaskRowEntity;
+import com.ogon.timetracker.enums.TaskTermKind;
+import com.ogon.timetracker.rendererer.TimeTrackerRenderer;
+import com.ogon.timetracker.repositories.LegacyTaskRepository;
+import com.ogon.timetracker.repositories.TaskCellRepository;
+import com.ogon.timetracker.repositories.TaskRowRepository;
+import com.ogon.timetracker.events.TaskStorageMigratedEvent;
+import com.ogon.timetracker.exceptions.ServiceBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Moves rows of the legacy wide tasks table into task_rows headers and task_cells days.
+ * Runs in the background once the application is ready, so a large table does not hold up
+ * startup or health checks; task writes are refused until this instance has walked the
+ * table, so nobody books hours on a week whose rows have not been moved yet, while reads
+ * may briefly show a partly moved history. The table is walked by row id in chunks with
+ * one transaction per chunk, and each chunk is read with a write lock and deletes what it
+ * moved, so instances starting together wait for each other's chunks instead of copying
+ * them twice, and a restart after a failure carries on where it stopped. Days of one row
+ * that disagree on their fields become separate rows, and rows whose date cannot be
+ * parsed stay in tasks to be fixed by hand. Client, project and category are encoded
+ * through TaskTermDictionary on the way.
+ * Afterwards the daily rollups are rebuilt if anything was moved, or built if this is
+ * their first start.
+ */
+@Slf4j
+@Service
+public class TaskStorageMigrationService {
+
+    private static final int CHUNK_ATTEMPTS = 3;
+
+    private final LegacyTaskRepository legacyTaskRepository;
+    private final TaskRowRepository taskRowRepository;
+    private final TaskCellRepository taskCellRepository;
+    private final RowIdAllocator rowIdAllocator;
+    private final TaskTermDictionary taskTermDictionary;
+    private final TaskRollupService taskRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private volatile boolean migrating = true;
+
+    public TaskStorageMigrationService(LegacyTaskRepository legacyTaskRepository,
+                                       TaskRowRepository taskRowRepository,
+                                       TaskCellRepository taskCellRepository,
+                                       RowIdAllocator rowIdAllocator,
+                                       TaskTermDictionary taskTermDictionary,
+                                       TaskRollupService taskRollupService,
+                                       ApplicationEventPublisher eventPublisher,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.task-migration.chunk-size:200}") int chunkSize) {
+        this.legacyTaskRepository = legacyTaskRepository;
+        this.taskRowRepository = taskRowRepository;
+        this.taskCellRepository = taskCellRepository;
+        this.rowIdAllocator = rowIdAllocator;
+        this.taskTermDictionary = taskTermDictionary;
+        this.taskRollupService = taskRollupService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        Thread worker = new Thread(this::migrateAndInitializeRollups, "task-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Refuses a task write while the legacy table may still hold rows of the weeks it touches. */
+    public void checkMigrated() {
+        if (migrating) {
+            throw new ServiceBusyException("Task storage is still being migrated, please retry shortly");
+        }
+    }
+
+    // A failed run keeps writes refused; the next start carries on where it stopped
+    private void migrateAndInitializeRollups() {
+        long migrated;
+        try {
+            migrated = migrate();
+        } catch (RuntimeException e) {
+            log.error("Moving legacy tasks failed, task writes stay refused until the next start", e);
+            return;
+        }
+        migrating = false;
+        eventPublisher.publishEvent(new TaskStorageMigratedEvent(migrated));
+        try {
+            if (migrated > 0) {
+                taskRollupService.rebuildAll();
+            } else {
+                taskRollupService.initializeIfEmpty();
+            }
+        } catch (RuntimeException e) {
+            log.error("Initial task rollup build failed", e);
+        }
+    }
+
+    long migrate() {
+        long migrated = migrateGroupedRows() + migrateUngroupedRows();
+        if (migrated > 0) {
+            log.info("Moved {} task rows into task_rows and task_cells", migrated);
+        }
+        return migrated;
+    }
+
+    // Rows saved through the weekly grid, a chunk of row ids at a time
+    private long migrateGroupedRows() {
+        long lastRowId = 0L;
+        long moved = 0L;
+        while (true) {
+            long afterRowId = lastRowId;
+            List<Long> rowIds = legacyTaskRepository.findRowIdsAfter(afterRowId, PageRequest.of(0, chunkSize));
+            if (rowIds.isEmpty()) {
+                return moved;
+            }
+            moved += moveChunk(() -> legacyTaskRepository.findForUpdateByRowIdIn(rowIds));
+            lastRowId = rowIds.get(rowIds.size() - 1);
+        }
+    }
+
+    // Rows saved one day at a time, which never had a row id, walked by id
+    private long migrateUngroupedRows() {
+        long lastId = 0L;
+        long moved = 0L;
+        while (true) {
+            List<Long> ids = legacyTaskRepository.findUngroupedIdsAfter(lastId, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                return moved;
+            }
+            moved += moveChunk(() -> legacyTaskRepository.findUngroupedForUpdateByIdIn(ids));
+            lastId = ids.get(ids.size() - 1);
+        }
+    }
+
+    // The chunk is read inside its transaction; a deadlock with another instance is retried
+    private int moveChunk(Supplier<List<LegacyTaskEntity>> chunk) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Integer moved = transactionTemplate.execute(status -> moveChunk(chunk.get()));
+                return moved == null ? 0 : moved;
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Task migration chunk hit a lock conflict, retrying", e);
+            }
+        }
+    }
+
+    private int moveChunk(List<LegacyTaskEntity> tasks) {
+        Map<Long, Map<TaskRowEntity, List<LegacyTaskEntity>>> groupsByRowId = new LinkedHashMap<>();
+        List<Long> movedIds = new ArrayList<>();
+        for (LegacyTaskEntity task : tasks) {
+            if (workDateOf(task) == null) {
+                log.warn("Leaving task {} in tasks, its date '{}' cannot be parsed", task.getId(), task.getDate());
+                continue;
+            }
+            groupsByRowId.computeIfAbsent(task.getRowId(), rowId -> new LinkedHashMap<>())
+                    .computeIfAbsent(header(task), fields -> new ArrayList<>())
+                    .add(task);
+        }
+
+        List<TaskRowEntity> rows = new ArrayList<>();
+        List<TaskCellEntity> cells = new ArrayList<>();
+        groupsByRowId.forEach((rowId, groups) -> {
+            // The largest group keeps the row id, so the grid shows most of the row where it was
+            TaskRowEntity largest = rowId == null ? null : groups.entrySet().stream()
+                    .max(Comparator.comparingInt(group -> group.getValue().size()))
+                    .map(Map.Entry::getKey)
+                    .orElseThrow();
+            groups.forEach((fields, groupTasks) -> {
+                long newRowId = fields.equals(largest) ? rowId : rowIdAllocator.nextRowId();
+                rows.add(fields.toBuilder().rowId(newRowId).build());
+                for (LegacyTaskEntity task : groupTasks) {
+                    cells.add(TaskCellEntity.builder()
+                            .rowId(newRowId)
+                            .workDate(workDateOf(task))
+                            .hours(task.getHours())
+                            .build());
+                    movedIds.add(task.getId());
+                }
+            });
+        });
+
+        taskRowRepository.persistAll(rows);
+        taskCellRepository.saveAll(cells);
+        legacyTaskRepository.deleteAllByIdInBatch(movedIds);
+        return movedIds.size();
+    }
+
+    private TaskRowEntity header(LegacyTaskEntity task) {
+        return TaskRowEntity.builder()
+                .userId(task.getUserId())
+                .firstName(task.getFirstName())
+                .lastName(task.getLastName())
+                .clientId(taskTermDictionary.encode(TaskTermKind.CLIENT, task.getClient()))
+                .projectId(taskTermDictionary.encode(TaskTermKind.PROJECT, task.getProject()))
+                .ticket(task.getTicket())
+                .ticketDescription(task.getTicketDescription())
+                .categoryId(taskTermDictionary.encode(TaskTermKind.CATEGORY, task.getCategory()))
+                .description(task.getDescription())
+                .billable(TimeTrackerRenderer.toBillable(task.getBillable()))
+                .build();
+    }
+
+    private LocalDate workDateOf(LegacyTaskEntity task) {
+        if (task.getWorkDate() != null) {
+            return task.getWorkDate();
+        }
+        try {
+            return TimeTrackerRenderer.toWorkDate(task.getDate());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.entities.TaskTermEntity;
+import com.ogon.timetracker.enums.TaskTermKind;
+import com.ogon.timetracker.repositories.TaskTermRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached two-way mapping between the client, project and category values of task rows and
+ * their task_terms ids. Terms never change once written, so both directions are cached for
+ * good: writes encode from memory and only a value never seen on this instance costs a
+ * lookup, or an insert in the writer's transaction, as the ticket registry does for new
+ * tickets. Terms read or added inside a transaction are cached once it commits, so a
+ * rollback never leaves an id behind that the table does not hold. Filters are resolved
+ * against the table, so they also see terms other instances have just added.
+ */
+@Slf4j
+@Service
+public class TaskTermDictionary {
+
+    private final TaskTermRepository taskTermRepository;
+    private final Terms terms = new Terms();
+
+    public TaskTermDictionary(TaskTermRepository taskTermRepository) {
+        this.taskTermRepository = taskTermRepository;
+    }
+
+    @PostConstruct
+    void load() {
+        taskTermRepository.findAll().forEach(terms::add);
+        log.debug("Task term dictionary holds {} terms", terms.size());
+    }
+
+    /** Id of the exact value, added to the dictionary when new; null stays null. */
+    public Long encode(TaskTermKind kind, String value) {
+        if (value == null) {
+            return null;
+        }
+        Long id = terms.id(kind, value);
+        Terms pending = (Terms) TransactionSynchronizationManager.getResource(this);
+        if (id == null && pending != null) {
+            id = pending.id(kind, value);
+        }
+        if (id != null) {
+            return id;
+        }
+        String hash = TaskTermEntity.hashOf(value);
+        TaskTermEntity term = taskTermRepository.findByKindAndTermHash(kind, hash)
+                .orElseGet(() -> create(kind, value, hash));
+        remember(term);
+        return term.getId();
+    }
+
+    public String decode(Long id) {
+        if (id == null) {
+            return null;
+        }
+        String value = terms.value(id);
+        Terms pending = (Terms) TransactionSynchronizationManager.getResource(this);
+        if (value == null && pending != null) {
+            value = pending.value(id);
+        }
+        if (value != null) {
+            return value;
+        }
+        // Added by another instance since startup
+        return taskTermRepository.findById(id)
+                .map(term -> {
+                    remember(term);
+                    return term.getTerm();
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Ids of every spelling that matches the value trimmed and ignoring case, or null when
+     * the value is blank or the UI's "all" option and should not filter at all.
+     */
+    public Set<Long> matching(TaskTermKind kind, String value) {
+        if (value == null || value.isBlank() || "all".equalsIgnoreCase(value.trim())) {
+            return null;
+        }
+        return new HashSet<>(taskTermRepository.findIdsByKindAndTermKey(kind, TaskTermEntity.keyOf(value)));
+    }
+
+    // Runs in the writer's transaction; the term is then read back whoever inserted it
+    private TaskTermEntity create(TaskTermKind kind, String value, String hash) {
+        taskTermRepository.insertIfAbsent(kind, value, hash, TaskTermEntity.keyOf(value));
+        return taskTermRepository.findCurrentByKindAndTermHash(kind, hash).orElseThrow();
+    }
+
+    private void remember(TaskTermEntity term) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending().add(term);
+        } else {
+            terms.add(term);
+        }
+    }
+
+    // Terms seen by the current transaction, moved into the shared cache when it commits
+    private Terms pending() {
+        Terms pending = (Terms) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Terms seen = new Terms();
+        TransactionSynchronizationManager.bindResource(this, seen);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                terms.addAll(seen);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TaskTermDictionary.this);
+            }
+        });
+        return seen;
+    }
+
+    private static final class Terms {
+
+        private final Map<TaskTermKind, Map<String, Long>> idsByKind = new EnumMap<>(TaskTermKind.class);
+        private final Map<Long, String> values = new ConcurrentHashMap<>();
+
+        Terms() {
+            for (TaskTermKind kind : TaskTermKind.values()) {
+                idsByKind.put(kind, new ConcurrentHashMap<>());
+            }
+        }
+
+        Long id(TaskTermKind kind, String value) {
+            return idsByKind.get(kind).get(value);
+        }
+
+        String value(Long id) {
+            return values.get(id);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        void add(TaskTermEntity term) {
+            idsByKind.get(term.getKind()).put(term.getTerm(), term.getId());
+            values.put(term.getId(), term.getTerm());
+        }
+
+        void addAll(Terms other) {
+            other.idsByKind.forEach((kind, ids) -> idsByKind.get(kind).putAll(ids));
+            values.putAll(other.values);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.dto.TaskDTO;
+import com.ogon.timetracker.dto.TaskDayKey;
+import com.ogon.timetracker.dto.TaskSaveResultDTO;
+import com.ogon.timetracker.entities.TaskCellEntity;
+import com.ogon.timetracker.entities.TaskRowEntity;
+import com.ogon.timetracker.enums.TaskTermKind;
+import com.ogon.timetracker.events.TasksChangedEvent;
+import com.ogon.timetracker.rendererer.TimeTrackerRenderer;
+import com.ogon.timetracker.repositories.TaskCellRepository;
+import com.ogon.timetracker.repositories.TaskRowRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Write side of the weekly effort grid. A weekly row is one task_rows header with the
+ * fields its days share, plus one narrow task_cells row per day. A whole save request runs
+ * in one transaction: the referenced headers and their cells are loaded with one IN query
+ * each, a changed field is written once on the header instead of on every day, changed
+ * hours are updated through dirty checking and new headers and cells are persisted
+ * together, so Hibernate can send them as JDBC batches on flush. Client, project and category are
+ * stored as TaskTermDictionary ids and billable as a flag.
+ * Every write also recomputes the task_daily_rollups rows of the user-days it touched,
+ * in the same transaction, so the rollups never drift from the raw rows, records the
+ * tickets it carries in the ticket registry, and publishes a {@link TasksChangedEvent}
+ * that read caches act on once the transaction commits. Days already moved to the
+ * archive by TaskArchiveService are refused by the rollup refresh, since their rollups
+ * can no longer be recomputed from task_cells.
+ */
+@Service
+@RequiredArgsConstructor
+public class TaskWriteService {
+
+    private final TaskRowRepository taskRowRepository;
+    private final TaskCellRepository taskCellRepository;
+    private final RowIdAllocator rowIdAllocator;
+    private final TaskRollupService taskRollupService;
+    private final TicketRegistryService ticketRegistryService;
+    private final TaskTermDictionary taskTermDictionary;
+    private final TaskStorageMigrationService taskStorageMigrationService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Tasks posted one per day; days that share all their fields become cells of one row
+    @Transactional
+    public int saveTasks(Long userId, List<TaskDTO> tasks) {
+        taskStorageMigrationService.checkMigrated();
+        Map<TaskRowEntity, List<TaskCellEntity>> cellsByFields = new LinkedHashMap<>();
+        for (TaskDTO dto : tasks) {
+            TaskRowEntity fields = TaskRowEntity.builder()
+                    .userId(userId)
+                    .firstName(dto.getFirstName())
+                    .lastName(dto.getLastName())
+                    .clientId(taskTermDictionary.encode(TaskTermKind.CLIENT, dto.getClient().toUpperCase()))
+                    .projectId(taskTermDictionary.encode(TaskTermKind.PROJECT, dto.getProject()))
+                    .ticket(dto.getTicket())
+                    .ticketDescription(dto.getTicketDescription())
+                    .categoryId(taskTermDictionary.encode(TaskTermKind.CATEGORY, dto.getCategory()))
+                    .description(dto.getDescription())
+                    .billable(TimeTrackerRenderer.toBillable(dto.getBillable()))
+                    .build();
+            cellsByFields.computeIfAbsent(fields, f -> new ArrayList<>())
+                    .add(buildCell(null, TimeTrackerRenderer.toWorkDate(dto.getDate()), dto.getHours()));
+        }
+
+        Map<Long, TaskRowEntity> rows = new HashMap<>();
+        List<TaskCellEntity> cells = new ArrayList<>();
+        cellsByFields.forEach((fields, rowCells) -> {
+            TaskRowEntity row = fields.toBuilder().rowId(rowIdAllocator.nextRowId()).build();
+            rowCells.forEach(cell -> cell.setRowId(row.getRowId()));
+            rows.put(row.getRowId(), row);
+            cells.addAll(rowCells);
+        });
+
+        taskRowRepository.persistAll(rows.values());
+        taskCellRepository.saveAll(cells);
+        refreshRollups(Set.of(), rows, cells, Set.of());
+        return cells.size();
+    }
+
+    @Transactional
+    public TaskDTO updateTask(Long id, TaskDTO taskDTO) {
+        taskStorageMigrationService.checkMigrated();
+        TaskCellEntity cell = taskCellRepository.findById(id).orElseThrow();
+        TaskRowEntity row = taskRowRepository.findById(cell.getRowId()).orElseThrow();
+        Set<TaskDayKey> before = Set.of(TaskDayKey.of(row, cell));
+        boolean descriptionEdited = !Objects.equals(row.getTicketDescription(), taskDTO.getTicketDescription());
+
+        Long clientId = taskTermDictionary.encode(TaskTermKind.CLIENT, taskDTO.getClient().toUpperCase());
+        Long projectId = taskTermDictionary.encode(TaskTermKind.PROJECT, taskDTO.getProject());
+        Long categoryId = taskTermDictionary.encode(TaskTermKind.CATEGORY, taskDTO.getCategory());
+        Boolean billable = TimeTrackerRenderer.toBillable(taskDTO.getBillable());
+        if (!row.sameFields(clientId, projectId, taskDTO.getTicket(), taskDTO.getTicketDescription(),
+                categoryId, taskDTO.getDescription(), billable)) {
+            // The row's other days keep their fields, so this day moves to a row of its own
+            if (taskCellRepository.countByRowId(row.getRowId()) > 1) {
+                row = row.toBuilder().rowId(rowIdAllocator.nextRowId()).build();
+                taskRowRepository.persistAll(List.of(row));
+                cell.setRowId(row.getRowId());
+            }
+            row.setClientId(clientId);
+            row.setProjectId(projectId);
+            row.setTicket(taskDTO.getTicket());
+            row.setTicketDescription(taskDTO.getTicketDescription());
+            row.setCategoryId(categoryId);
+            row.setDescription(taskDTO.getDescription());
+            row.setBillable(billable);
+        }
+        cell.setHours(taskDTO.getHours());
+        LocalDate workDate = TimeTrackerRenderer.toWorkDate(taskDTO.getDate());
+        if (workDate != null) {
+            cell.setWorkDate(workDate);
+        }
+
+        refreshRollups(before, Map.of(row.getRowId(), row), List.of(cell),
+                descriptionEdited ? Set.of(row.getRowId()) : Set.of());
+        return TaskDTO.builder()
+                .id(cell.getId())
+                .client(taskTermDictionary.decode(row.getClientId()))
+                .project(taskTermDictionary.decode(row.getProjectId()))
+                .ticket(row.getTicket())
+                .ticketDescription(row.getTicketDescription())
+                .category(taskTermDictionary.decode(row.getCategoryId()))
+                .description(row.getDescription())
+                .billable(TimeTrackerRenderer.toBillableLabel(row.getBillable()))
+                .hours(cell.getHours())
+                .date(TimeTrackerRenderer.toDisplayDate(cell.getWorkDate()))
+                .build();
+    }
+
+    @Transactional
+    public TaskSaveResultDTO saveWeeklyRows(Long userId, List<Map<String, Object>> tasks) {
+        taskStorageMigrationService.checkMigrated();
+
+        List<TaskRowEntity> newRows = new ArrayList<>();
+        List<TaskCellEntity> toInsert = new ArrayList<>();
+        List<TaskCellEntity> toUpdate = new ArrayList<>();
+        List<String> updateLogs = new ArrayList<>();
+        Set<Long> editedRowIds = new HashSet<>();
+
+        Set<Long> rowIds = tasks.stream()
+                .map(dto -> toRowId(dto.get("rowId")))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, TaskRowEntity> rows = new HashMap<>();
+        Map<Long, List<TaskCellEntity>> cellsByRowId = Map.of();
+        if (!rowIds.isEmpty()) {
+            taskRowRepository.findAllById(rowIds).forEach(row -> rows.put(row.getRowId(), row));
+            cellsByRowId = taskCellRepository.findByRowIdIn(rowIds).stream()
+                    .collect(Collectors.groupingBy(TaskCellEntity::getRowId));
+        }
+        Set<TaskDayKey> touchedBefore = new HashSet<>();
+        cellsByRowId.values().stream()
+                .flatMap(List::stream)
+                .forEach(cell -> touchedBefore.add(TaskDayKey.of(rows.get(cell.getRowId()), cell)));
+
+        for (Map<String, Object> dto : tasks) {
+
+            Long rowId = toRowId(dto.get("rowId"));
+
+            String firstName = (String) dto.get("firstName");
+            String lastName = (String) dto.get("lastName");
+            Long clientId = taskTermDictionary.encode(TaskTermKind.CLIENT, (String) dto.get("client"));
+            Long projectId = taskTermDictionary.encode(TaskTermKind.PROJECT, (String) dto.get("project"));
+            String ticket = (String) dto.get("ticket");
+            String ticketDescription = (String) dto.get("ticketDescription");
+            Long categoryId = taskTermDictionary.encode(TaskTermKind.CATEGORY, (String) dto.get("category"));
+            String description = (String) dto.get("description");
+            Boolean billable = TimeTrackerRenderer.toBillable((String) dto.get("billable"));
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> hoursByDate = (Map<String, Object>) dto.get("hoursByDate");
+            if (hoursByDate == null || hoursByDate.isEmpty()) continue;
+            Map<LocalDate, Object> hoursByDay = byWorkDate(hoursByDate);
+
+            /* ===========================================================
+             * 1️⃣ EXISTING WEEKLY GROUP → UPDATE LOGIC
+             * =========================================================== */
+            TaskRowEntity row = rowId != null ? rows.get(rowId) : null;
+            List<TaskCellEntity> existingCells = row != null
+                    ? cellsByRowId.getOrDefault(rowId, List.of())
+                    : List.of();
+
+            if (!existingCells.isEmpty()) {
+
+                // 1. Static fields live on the header, so a change is written once for the row
+                boolean staticChanged = !row.sameFields(clientId, projectId, ticket, ticketDescription,
+                        categoryId, description, billable);
+                if (staticChanged) {
+                    if (!Objects.equals(row.getTicketDescription(), ticketDescription)) {
+                        editedRowIds.add(rowId);
+                    }
+                    row.setClientId(clientId);
+                    row.setProjectId(projectId);
+                    row.setTicket(ticket);
+                    row.setTicketDescription(ticketDescription);
+                    row.setCategoryId(categoryId);
+                    row.setDescription(description);
+                    row.setBillable(billable);
+                    row.setUserId(userId);
+                    row.setFirstName(firstName);
+                    row.setLastName(lastName);
+                    updateLogs.add("Updated fields | rowId=" + rowId);
+                }
+
+                // 2. Update existing dates (managed entities, flushed as a batch on commit)
+                for (TaskCellEntity existing : existingCells) {
+                    boolean cellChanged = staticChanged;
+                    Object newHoursObj = hoursByDay.get(existing.getWorkDate());
+
+                    if (newHoursObj != null) {
+                        double newHours = Double.parseDouble(newHoursObj.toString());
+
+                        if (existing.getHours() == null || Double.compare(existing.getHours(), newHours) != 0) {
+                            existing.setHours(newHours);
+                            cellChanged = true;
+                            updateLogs.add("Updated hours | rowId=" + rowId
+                                    + " date=" + TimeTrackerRenderer.toDisplayDate(existing.getWorkDate()));
+                        }
+                    }
+
+                    if (cellChanged) {
+                        toUpdate.add(existing);
+                    }
+                }
+
+                // 3. Insert NEW DATES not present in DB
+                Set<LocalDate> existingDates =
+                        existingCells.stream().map(TaskCellEntity::getWorkDate).collect(Collectors.toSet());
+
+                for (Map.Entry<LocalDate, Object> e : hoursByDay.entrySet()) {
+                    LocalDate date = e.getKey();
+                    Object hoursObj = e.getValue();
+
+                    if (!existingDates.contains(date) && hoursObj != null && !hoursObj.toString().isBlank()) {
+                        double hours = Double.parseDouble(hoursObj.toString());
+
+                        toInsert.add(buildCell(rowId, date, hours));
+                        updateLogs.add("Inserted NEW date | rowId=" + rowId
+                                + " date=" + TimeTrackerRenderer.toDisplayDate(date));
+                    }
+                }
+
+                continue; // Done with update block
+            }
+
+            /* ===========================================================
+             * 2️⃣ NEW WEEKLY ENTRY → INSERT LOGIC
+             * =========================================================== */
+
+            rowId = rowIdAllocator.nextRowId();
+            int inserted = 0;
+
+            for (Map.Entry<LocalDate, Object> e : hoursByDay.entrySet()) {
+                Object hoursObj = e.getValue();
+                if (hoursObj == null || hoursObj.toString().isBlank()) continue;
+
+                double hours = Double.parseDouble(hoursObj.toString());
+                LocalDate date = e.getKey();
+
+                toInsert.add(buildCell(rowId, date, hours));
+                updateLogs.add("Inserted NEW weekly row | rowId=" + rowId
+                        + " date=" + TimeTrackerRenderer.toDisplayDate(date));
+                inserted++;
+            }
+
+            if (inserted > 0) {
+                TaskRowEntity header = TaskRowEntity.builder()
+                        .rowId(rowId)
+                        .userId(userId)
+                        .firstName(firstName)
+                        .lastName(lastName)
+                        .clientId(clientId)
+                        .projectId(projectId)
+                        .ticket(ticket)
+                        .ticketDescription(ticketDescription)
+                        .categoryId(categoryId)
+                        .description(description)
+                        .billable(billable)
+                        .build();
+                newRows.add(header);
+                rows.put(rowId, header);
+            }
+        }
+
+        if (!newRows.isEmpty()) taskRowRepository.persistAll(newRows);
+        if (!toInsert.isEmpty()) taskCellRepository.saveAll(toInsert);
+
+        List<TaskCellEntity> written = new ArrayList<>(toInsert);
+        written.addAll(toUpdate);
+        refreshRollups(touchedBefore, rows, written, editedRowIds);
+
+        return new TaskSaveResultDTO(toInsert.size(), toUpdate.size(), updateLogs);
+    }
+
+    // Flushed first, because the rollups are recomputed with native SQL over the new state
+    private void refreshRollups(Set<TaskDayKey> before, Map<Long, TaskRowEntity> rows,
+                                Collection<TaskCellEntity> written, Set<Long> editedRowIds) {
+        if (before.isEmpty() && written.isEmpty()) {
+            return;
+        }
+        taskCellRepository.flush();
+        Set<TaskDayKey> days = new HashSet<>(before);
+        written.forEach(cell -> days.add(TaskDayKey.of(rows.get(cell.getRowId()), cell)));
+        taskRollupService.refresh(days);
+        ticketRegistryService.recordUse(rows, written, editedRowIds);
+        eventPublisher.publishEvent(new TasksChangedEvent(days));
+    }
+
+    // The grid keys hours by display date; cells are matched on the parsed day
+    private Map<LocalDate, Object> byWorkDate(Map<String, Object> hoursByDate) {
+        return hoursByDate.entrySet().stream()
+                .collect(Collectors.toMap(e -> TimeTrackerRenderer.toWorkDate(e.getKey()), Map.Entry::getValue,
+                        (first, second) -> second, LinkedHashMap::new));
+    }
+
+    private Long toRowId(Object value) {
+        return value != null ? Long.valueOf(value.toString()) : null;
+    }
+
+    private TaskCellEntity buildCell(Long rowId, LocalDate workDate, Double hours) {
+        return TaskCellEntity.builder()
+                .rowId(rowId)
+                .workDate(workDate)
+                .hours(hours)
+                .build();
+    }
+}
@@ -0,0 +1,282 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.entities.MaintenanceStateEntity;
+import com.ogon.timetracker.entities.TaskCellEntity;
+import com.ogon.timetracker.entities.TaskRowEntity;
+import com.ogon.timetracker.entities.TicketEntity;
+import com.ogon.timetracker.events.TaskStorageMigratedEvent;
+import com.ogon.timetracker.events.TicketDescriptionChangedEvent;
+import com.ogon.timetracker.events.TicketsBackfilledEvent;
+import com.ogon.timetracker.events.TicketsUsedEvent;
+import com.ogon.timetracker.repositories.MaintenanceStateRepository;
+import com.ogon.timetracker.repositories.TaskRepository;
+import com.ogon.timetracker.repositories.TicketRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Keeps the tickets table in step with task writes. Every write records the tickets it
+ * carries: a ticket seen for the first time gets its row and the used range is widened.
+ * A description becomes the canonical one only when the ticket is new, when it has none
+ * yet, or when the write changed it on a row; rows keep the text they were saved with, so
+ * re-saving one must not undo a rename. Lookups and renames are then a single row found by
+ * its unique key.
+ * New rows are inserted in the writer's transaction with an insert that does nothing on a
+ * duplicate key, so two writes introducing the same ticket at once cannot fail each other;
+ * the later one waits for the first and then just updates the row. Tickets already in
+ * tasks are loaded in the background once the legacy tasks have been moved, on every
+ * start until a completed backfill has been recorded.
+ */
+@Slf4j
+@Service
+public class TicketRegistryService {
+
+    private static final int BACKFILL_CHUNK_SIZE = 500;
+    private static final String BACKFILL_DONE = "tickets.backfill-done";
+
+    private final TicketRepository ticketRepository;
+    private final TaskRepository taskRepository;
+    private final MaintenanceStateRepository maintenanceStateRepository;
+    private final TaskTermDictionary taskTermDictionary;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private volatile boolean backfillPending;
+
+    public TicketRegistryService(TicketRepository ticketRepository,
+                                 TaskRepository taskRepository,
+                                 MaintenanceStateRepository maintenanceStateRepository,
+                                 TaskTermDictionary taskTermDictionary,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager) {
+        this.ticketRepository = ticketRepository;
+        this.taskRepository = taskRepository;
+        this.maintenanceStateRepository = maintenanceStateRepository;
+        this.taskTermDictionary = taskTermDictionary;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // A failed or interrupted backfill records nothing, so the next start runs it again
+    @PostConstruct
+    void checkBackfill() {
+        backfillPending = !maintenanceStateRepository.existsById(BACKFILL_DONE);
+    }
+
+    // Legacy tasks are moved first, so the backfill sees all of them
+    @EventListener(TaskStorageMigratedEvent.class)
+    public void startBackfill() {
+        if (!backfillPending) {
+            return;
+        }
+        Thread worker = new Thread(this::backfill, "ticket-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public Optional<TicketEntity> find(String ticket) {
+        String key = TicketEntity.keyOf(ticket);
+        return key == null ? Optional.empty() : ticketRepository.findByTicketKey(key);
+    }
+
+    /** Canonical descriptions by ticket key; tickets without one are left out. */
+    public Map<String, String> descriptions(Collection<String> tickets) {
+        Set<String> keys = new HashSet<>();
+        tickets.stream().map(TicketEntity::keyOf).filter(Objects::nonNull).forEach(keys::add);
+        Map<String, String> descriptions = new HashMap<>();
+        if (keys.isEmpty()) {
+            return descriptions;
+        }
+        for (Object[] row : ticketRepository.findDescriptionsByTicketKeyIn(keys)) {
+            if (row[1] != null) {
+                descriptions.put((String) row[0], (String) row[1]);
+            }
+        }
+        return descriptions;
+    }
+
+    // Returns false when the ticket is unknown
+    @Transactional
+    public boolean updateDescription(String ticket, String description) {
+        String key = TicketEntity.keyOf(ticket);
+        if (key == null || ticketRepository.updateDescription(key, description, Instant.now()) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(new TicketDescriptionChangedEvent(key, description));
+        return true;
+    }
+
+    /**
+     * Records the tickets of written day cells, each under the header of its row. Must be
+     * called inside the transaction that wrote them, so the registry and the rows commit or
+     * roll back together. Edited rows are those whose ticket description this write changed.
+     */
+    public void recordUse(Map<Long, TaskRowEntity> rows, Collection<TaskCellEntity> written,
+                          Set<Long> editedRowIds) {
+        Map<String, TicketUse> uses = new HashMap<>();
+        Map<String, Set<String>> ticketsByClient = new HashMap<>();
+        for (TaskCellEntity cell : written) {
+            TaskRowEntity row = rows.get(cell.getRowId());
+            String key = row == null ? null : TicketEntity.keyOf(row.getTicket());
+            if (key != null) {
+                uses.merge(key, TicketUse.of(row, cell, editedRowIds.contains(row.getRowId())), TicketUse::merge);
+                String client = taskTermDictionary.decode(row.getClientId());
+                if (client != null) {
+                    ticketsByClient.computeIfAbsent(client, c -> new HashSet<>())
+                            .add(row.getTicket().trim());
+                }
+            }
+        }
+        if (uses.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> stored = new HashMap<>();
+        for (Object[] row : ticketRepository.findDescriptionsByTicketKeyIn(uses.keySet())) {
+            stored.put((String) row[0], (String) row[1]);
+        }
+
+        Instant now = Instant.now();
+        Map<String, String> descriptions = new HashMap<>();
+        uses.forEach((key, use) -> {
+            boolean known = stored.containsKey(key);
+            if (!known) {
+                ticketRepository.insertIfAbsent(key, use.ticket(), now);
+            }
+            if (use.firstUsedOn() != null) {
+                ticketRepository.recordUse(key, use.firstUsedOn(), use.lastUsedOn(), now);
+            }
+            String current = stored.get(key);
+            boolean canonical = !known || current == null || use.edited();
+            if (canonical && use.description() != null && !use.description().equals(current)) {
+                ticketRepository.updateDescription(key, use.description(), now);
+                descriptions.put(key, use.description());
+                if (known) {
+                    eventPublisher.publishEvent(new TicketDescriptionChangedEvent(key, use.description()));
+                }
+            }
+        });
+        eventPublisher.publishEvent(new TicketsUsedEvent(ticketsByClient, descriptions));
+    }
+
+    // Loads tickets from existing tasks; keys written meanwhile keep their description
+    public int backfill() {
+        try {
+            Map<String, TicketUse> uses = new HashMap<>();
+            for (Object[] row : taskRepository.findTicketUsage()) {
+                String ticket = ((String) row[0]).trim();
+                uses.merge(TicketEntity.keyOf(ticket),
+                        new TicketUse(ticket, (LocalDate) row[1], (LocalDate) row[2], null, -1L),
+                        TicketUse::merge);
+            }
+            for (Object[] row : taskRepository.findLatestTicketDescriptions()) {
+                String key = TicketEntity.keyOf((String) row[0]);
+                TicketUse use = uses.get(key);
+                if (use != null) {
+                    uses.put(key, use.merge(new TicketUse(use.ticket(), null, null,
+                            ((String) row[1]).trim(), (Long) row[2])));
+                }
+            }
+
+            List<Map.Entry<String, TicketUse>> entries = new ArrayList<>(uses.entrySet());
+            for (int from = 0; from < entries.size(); from += BACKFILL_CHUNK_SIZE) {
+                List<Map.Entry<String, TicketUse>> chunk =
+                        entries.subList(from, Math.min(from + BACKFILL_CHUNK_SIZE, entries.size()));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> backfillChunk(chunk));
+                } catch (DataIntegrityViolationException e) {
+                    // A write created one of these tickets meanwhile; the retry sees it
+                    transactionTemplate.executeWithoutResult(status -> backfillChunk(chunk));
+                }
+            }
+            maintenanceStateRepository.save(new MaintenanceStateEntity(BACKFILL_DONE, null, Instant.now()));
+            log.info("Ticket registry backfill recorded {} tickets", entries.size());
+            eventPublisher.publishEvent(new TicketsBackfilledEvent(entries.size()));
+            return entries.size();
+        } catch (RuntimeException e) {
+            log.error("Ticket registry backfill failed", e);
+            return 0;
+        }
+    }
+
+    private void backfillChunk(List<Map.Entry<String, TicketUse>> chunk) {
+        Set<String> keys = new HashSet<>();
+        chunk.forEach(entry -> keys.add(entry.getKey()));
+        Set<String> existing = new HashSet<>();
+        ticketRepository.findDescriptionsByTicketKeyIn(keys).forEach(row -> existing.add((String) row[0]));
+
+        Instant now = Instant.now();
+        List<TicketEntity> missing = new ArrayList<>();
+        for (Map.Entry<String, TicketUse> entry : chunk) {
+            TicketUse use = entry.getValue();
+            if (!existing.contains(entry.getKey())) {
+                missing.add(use.toEntity(entry.getKey(), now));
+                continue;
+            }
+            if (use.firstUsedOn() != null) {
+                ticketRepository.recordUse(entry.getKey(), use.firstUsedOn(), use.lastUsedOn(), now);
+            }
+            if (use.description() != null) {
+                ticketRepository.fillDescription(entry.getKey(), use.description(), now);
+            }
+        }
+        ticketRepository.saveAll(missing);
+        ticketRepository.flush();
+    }
+
+    // What one write, or the backfill, knows about a ticket; the description with the higher id
+    // wins. Within a write, descriptions the write edited rank above ones it merely carried.
+    private record TicketUse(String ticket, LocalDate firstUsedOn, LocalDate lastUsedOn,
+                             String description, long descriptionId) {
+
+        static TicketUse of(TaskRowEntity row, TaskCellEntity cell, boolean edited) {
+            String description = row.getTicketDescription();
+            boolean present = description != null && !description.isBlank();
+            return new TicketUse(row.getTicket().trim(), cell.getWorkDate(), cell.getWorkDate(),
+                    present ? description.trim() : null, present ? (edited ? 1L : 0L) : -1L);
+        }
+
+        boolean edited() {
+            return descriptionId > 0;
+        }
+
+        // Within one write the later row wins, as it would have been the newest
+        TicketUse merge(TicketUse other) {
+            boolean otherDescription = other.description() != null && other.descriptionId() >= descriptionId;
+            return new TicketUse(ticket,
+                    min(firstUsedOn, other.firstUsedOn()),
+                    max(lastUsedOn, other.lastUsedOn()),
+                    otherDescription ? other.description() : description,
+                    otherDescription ? other.descriptionId() : descriptionId);
+        }
+
+        TicketEntity toEntity(String key, Instant now) {
+            return TicketEntity.builder()
+                    .ticketKey(key)
+                    .ticket(ticket)
+                    .description(description)
+                    .firstUsedOn(firstUsedOn)
+                    .lastUsedOn(lastUsedOn)
+                    .updatedAt(now)
+                    .build();
+        }
+
+        private static LocalDate min(LocalDate a, LocalDate b) {
+            return a == null ? b : b == null || a.isBefore(b) ? a : b;
+        }
+
+        private static LocalDate max(LocalDate a, LocalDate b) {
+            return a == null ? b : b == null || a.isAfter(b) ? a : b;
+        }
+    }
+}
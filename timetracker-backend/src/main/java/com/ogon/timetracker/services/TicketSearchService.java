@@ -0,0 +1,179 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.dto.TicketDescriptionDTO;
+import com.ogon.timetracker.entities.TicketEntity;
+import com.ogon.timetracker.events.TicketDescriptionChangedEvent;
+import com.ogon.timetracker.events.TicketsBackfilledEvent;
+import com.ogon.timetracker.events.TicketsUsedEvent;
+import com.ogon.timetracker.repositories.TaskRepository;
+import com.ogon.timetracker.repositories.TicketRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory ticket typeahead and batch description lookup. Every client has a sorted map
+ * of the ticket keys booked under it, so the tickets starting with a prefix are a single
+ * subMap walk, and descriptions are held in a hash map by key, so a whole week of tickets
+ * resolves without a query. The index is loaded at startup from the tickets table and the
+ * tasks, kept current from task writes and renames committed on this instance, and
+ * rebuilt periodically to pick up those of other instances. Tickets it does not know yet
+ * are looked up in the tickets table, all of them in one query.
+ */
+@Slf4j
+@Service
+public class TicketSearchService {
+
+    public static final int MAX_SUGGESTIONS = 50;
+    public static final int MAX_LOOKUP = 500;
+
+    private final TicketRepository ticketRepository;
+    private final TaskRepository taskRepository;
+    private volatile Index current = new Index();
+    private volatile Index building;
+
+    public TicketSearchService(TicketRepository ticketRepository, TaskRepository taskRepository) {
+        this.ticketRepository = ticketRepository;
+        this.taskRepository = taskRepository;
+    }
+
+    // After startup, once the legacy tasks have been moved into task_rows and task_cells
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /** Tickets of the client, or of every client when blank, whose key starts with the prefix. */
+    public List<TicketDescriptionDTO> suggest(String client, String prefix, int limit) {
+        String keyPrefix = TicketEntity.keyOf(prefix);
+        if (keyPrefix == null) {
+            return List.of();
+        }
+        Index index = current;
+        NavigableMap<String, String> tickets = client == null || client.isBlank()
+                ? index.allTickets
+                : index.byClient.get(clientKey(client));
+        if (tickets == null) {
+            return List.of();
+        }
+
+        int max = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        List<TicketDescriptionDTO> suggestions = new ArrayList<>();
+        for (Map.Entry<String, String> entry
+                : tickets.subMap(keyPrefix, true, keyPrefix + Character.MAX_VALUE, false).entrySet()) {
+            suggestions.add(new TicketDescriptionDTO(entry.getValue(), true,
+                    index.descriptions.getOrDefault(entry.getKey(), "")));
+            if (suggestions.size() == max) {
+                break;
+            }
+        }
+        return suggestions;
+    }
+
+    /** One entry per distinct requested ticket, in request order, as GET /tickets/description answers. */
+    public List<TicketDescriptionDTO> lookup(Collection<String> tickets) {
+        Index index = current;
+        Map<String, String> requested = new LinkedHashMap<>();
+        for (String ticket : tickets) {
+            String key = TicketEntity.keyOf(ticket);
+            if (key != null) {
+                requested.putIfAbsent(key, ticket.trim());
+            }
+        }
+
+        List<String> unknown = requested.keySet().stream()
+                .filter(key -> !index.allTickets.containsKey(key))
+                .toList();
+        if (!unknown.isEmpty()) {
+            // Registered by another instance since the last rebuild, or not a ticket at all
+            for (TicketEntity ticket : ticketRepository.findByTicketKeyIn(unknown)) {
+                apply(target -> target.add(null, ticket.getTicket(), ticket.getDescription()));
+            }
+        }
+
+        List<TicketDescriptionDTO> results = new ArrayList<>(requested.size());
+        requested.forEach((key, ticket) -> results.add(new TicketDescriptionDTO(ticket,
+                current.allTickets.containsKey(key), current.descriptions.getOrDefault(key, ""))));
+        return results;
+    }
+
+    @TransactionalEventListener
+    public void onTicketsUsed(TicketsUsedEvent event) {
+        apply(index -> {
+            event.ticketsByClient().forEach((client, tickets) ->
+                    tickets.forEach(ticket -> index.add(client, ticket, null)));
+            index.descriptions.putAll(event.descriptions());
+        });
+    }
+
+    @TransactionalEventListener
+    public void onTicketDescriptionChanged(TicketDescriptionChangedEvent event) {
+        apply(index -> index.descriptions.put(event.ticketKey(), event.description()));
+    }
+
+    @EventListener
+    public void onTicketsBackfilled(TicketsBackfilledEvent event) {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.tickets.search.rebuild-ms:3600000}",
+            initialDelayString = "${app.tickets.search.rebuild-ms:3600000}")
+    public synchronized void rebuild() {
+        // Published before reading the tables, so a change committed meanwhile lands in either
+        Index next = new Index();
+        building = next;
+        try {
+            for (Object[] row : ticketRepository.findAllTicketsAndDescriptions()) {
+                next.add(null, (String) row[0], (String) row[1]);
+            }
+            for (Object[] row : taskRepository.findDistinctClientTickets()) {
+                next.add((String) row[0], (String) row[1], null);
+            }
+            current = next;
+            log.debug("Ticket search index holds {} tickets", next.allTickets.size());
+        } finally {
+            building = null;
+        }
+    }
+
+    private void apply(Consumer<Index> change) {
+        change.accept(current);
+        Index next = building;
+        if (next != null) {
+            change.accept(next);
+        }
+    }
+
+    private static String clientKey(String client) {
+        return client.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static final class Index {
+        private final Map<String, ConcurrentSkipListMap<String, String>> byClient = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, String> allTickets = new ConcurrentSkipListMap<>();
+        private final Map<String, String> descriptions = new ConcurrentHashMap<>();
+
+        private void add(String client, String ticket, String description) {
+            String key = TicketEntity.keyOf(ticket);
+            if (key == null) {
+                return;
+            }
+            allTickets.putIfAbsent(key, ticket.trim());
+            if (client != null && !client.isBlank()) {
+                byClient.computeIfAbsent(clientKey(client), c -> new ConcurrentSkipListMap<>())
+                        .putIfAbsent(key, ticket.trim());
+            }
+            if (description != null) {
+                descriptions.put(key, description);
+            }
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.ogon.timetracker.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ogon.timetracker.dto.UserImportReportDTO;
+import com.ogon.timetracker.dto.UserImportResultDTO;
+import com.ogon.timetracker.dto.UserImportRowDTO;
+import com.ogon.timetracker.entities.PasswordHistoryEntity;
+import com.ogon.timetracker.entities.User;
+import com.ogon.timetracker.enums.Role;
+import com.ogon.timetracker.enums.UserImportStatus;
+import com.ogon.timetracker.exceptions.InvalidEmailDomainException;
+import com.ogon.timetracker.exceptions.PasswordPolicyViolationException;
+import com.ogon.timetracker.repositories.PasswordHistoryRepository;
+import com.ogon.timetracker.repositories.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Creates many users in one request. Rows are read from the CSV or JSON body as a stream
+ * and all parsed before anything is written, so a malformed or oversized body is rejected
+ * as a whole. They are then handled in chunks: each chunk is validated, checked against
+ * existing accounts with one IN query, hashed in parallel on the bcrypt pool and inserted
+ * in one transaction, users, roles and password history as JDBC batches. Every row gets its own outcome in
+ * the report, and a failing chunk does not undo the chunks before it.
+ */
+@Slf4j
+@Service
+public class UserProvisioningService {
+
+    private static final Map<String, String> CSV_COLUMNS = Map.of(
+            "email", "email",
+            "firstname", "firstName",
+            "first_name", "firstName",
+            "lastname", "lastName",
+            "last_name", "lastName",
+            "password", "password",
+            "role", "role"
+    );
+
+    private final UserRepository userRepository;
+    private final PasswordHistoryRepository passwordHistoryRepository;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final PasswordPolicyService passwordPolicyService;
+    private final AuthService authService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxRows;
+
+    public UserProvisioningService(UserRepository userRepository,
+                                   PasswordHistoryRepository passwordHistoryRepository,
+                                   PasswordHashingExecutor passwordHashingExecutor,
+                                   PasswordPolicyService passwordPolicyService,
+                                   AuthService authService,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.user-import.chunk-size:500}") int chunkSize,
+                                   @Value("${app.user-import.max-rows:10000}") int maxRows) {
+        this.userRepository = userRepository;
+        this.passwordHistoryRepository = passwordHistoryRepository;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.passwordPolicyService = passwordPolicyService;
+        this.authService = authService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+    }
+
+    public UserImportReportDTO importCsv(InputStream body) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return importRows(csvRows(reader));
+    }
+
+    public UserImportReportDTO importJson(InputStream body) {
+        return importRows(jsonRows(body));
+    }
+
+    private UserImportReportDTO importRows(Iterator<UserImportRowDTO> rows) {
+        long started = System.currentTimeMillis();
+        UserImportReportDTO report = new UserImportReportDTO();
+        Set<String> seenEmails = new HashSet<>();
+        List<UserImportRowDTO> all = readAll(rows);
+        for (int first = 0; first < all.size(); first += chunkSize) {
+            importChunk(all.subList(first, Math.min(first + chunkSize, all.size())), first + 1, seenEmails, report);
+        }
+
+        report.setTotal(all.size());
+        report.setDurationMs(System.currentTimeMillis() - started);
+        for (UserImportResultDTO result : report.getResults()) {
+            switch (result.getStatus()) {
+                case CREATED -> report.setCreated(report.getCreated() + 1);
+                case SKIPPED -> report.setSkipped(report.getSkipped() + 1);
+                case FAILED -> report.setFailed(report.getFailed() + 1);
+            }
+        }
+        log.info("User import: {} rows, {} created, {} skipped, {} failed in {} ms", report.getTotal(),
+                report.getCreated(), report.getSkipped(), report.getFailed(), report.getDurationMs());
+        return report;
+    }
+
+    // The whole body is parsed and counted before the first chunk commits, so a malformed or
+    // oversized import is rejected without having created anyone
+    private List<UserImportRowDTO> readAll(Iterator<UserImportRowDTO> rows) {
+        List<UserImportRowDTO> all = new ArrayList<>();
+        while (rows.hasNext()) {
+            if (all.size() == maxRows) {
+                throw new IllegalArgumentException("An import may contain at most " + maxRows + " users");
+            }
+            all.add(rows.next());
+        }
+        return all;
+    }
+
+    private void importChunk(List<UserImportRowDTO> chunk, int firstRow, Set<String> seenEmails,
+                             UserImportReportDTO report) {
+        UserImportResultDTO[] results = new UserImportResultDTO[chunk.size()];
+        List<Integer> candidates = new ArrayList<>();
+
+        // 1. Email, domain and role checks and duplicates within the file, all in memory
+        for (int i = 0; i < chunk.size(); i++) {
+            UserImportRowDTO row = chunk.get(i);
+            int rowNumber = firstRow + i;
+            String error = validate(row);
+            if (error != null) {
+                results[i] = new UserImportResultDTO(rowNumber, row.getEmail(), UserImportStatus.FAILED, error);
+            } else if (!seenEmails.add(row.getEmail().toLowerCase(Locale.ROOT))) {
+                results[i] = new UserImportResultDTO(rowNumber, row.getEmail(), UserImportStatus.SKIPPED,
+                        "Duplicate email in the import");
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        // 2. One IN query for the accounts that already exist, then the password policy
+        Set<String> existing = new HashSet<>();
+        if (!candidates.isEmpty()) {
+            List<String> emails = candidates.stream()
+                    .map(i -> chunk.get(i).getEmail().toLowerCase(Locale.ROOT))
+                    .toList();
+            for (Object[] match : userRepository.findIdsByLowerEmailIn(emails)) {
+                existing.add(((String) match[0]).toLowerCase(Locale.ROOT));
+            }
+        }
+        List<Integer> toCreate = new ArrayList<>();
+        for (int i : candidates) {
+            UserImportRowDTO row = chunk.get(i);
+            String policyError;
+            if (existing.contains(row.getEmail().toLowerCase(Locale.ROOT))) {
+                results[i] = new UserImportResultDTO(firstRow + i, row.getEmail(), UserImportStatus.SKIPPED,
+                        "User already exists");
+            } else if ((policyError = checkPasswordPolicy(row)) != null) {
+                results[i] = new UserImportResultDTO(firstRow + i, row.getEmail(), UserImportStatus.FAILED,
+                        policyError);
+            } else {
+                toCreate.add(i);
+            }
+        }
+
+        // 3. Parallel hashing, then users, roles and history in one batched transaction
+        if (!toCreate.isEmpty()) {
+            try {
+                List<String> hashes = passwordHashingExecutor.encodeAll(
+                        toCreate.stream().map(i -> chunk.get(i).getPassword()).toList());
+                List<User> users = new ArrayList<>(toCreate.size());
+                for (int k = 0; k < toCreate.size(); k++) {
+                    users.add(toUser(chunk.get(toCreate.get(k)), hashes.get(k)));
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    userRepository.saveAll(users);
+                    passwordHistoryRepository.saveAll(users.stream()
+                            .map(user -> PasswordHistoryEntity.builder()
+                                    .user(user)
+                                    .passwordHash(user.getPassword())
+                                    .build())
+                            .toList());
+                });
+                for (int i : toCreate) {
+                    results[i] = new UserImportResultDTO(firstRow + i, chunk.get(i).getEmail(),
+                            UserImportStatus.CREATED, null);
+                }
+            } catch (RuntimeException e) {
+                log.warn("User import chunk starting at row {} failed", firstRow, e);
+                for (int i : toCreate) {
+                    results[i] = new UserImportResultDTO(firstRow + i, chunk.get(i).getEmail(),
+                            UserImportStatus.FAILED, "Could not be saved: " + e.getMessage());
+                }
+            }
+        }
+        report.getResults().addAll(Arrays.asList(results));
+    }
+
+    // Same rules as self-registration, password policy aside; null means the row is valid
+    private String validate(UserImportRowDTO row) {
+        if (row.getEmail() == null || row.getEmail().isBlank()) {
+            return "Email is required";
+        }
+        row.setEmail(row.getEmail().trim());
+        if (row.getRole() != null && !row.getRole().isBlank()) {
+            try {
+                Role.valueOf(row.getRole().trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return "Invalid role";
+            }
+        }
+        try {
+            authService.validateCompanyEmail(row.getEmail());
+        } catch (InvalidEmailDomainException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    private String checkPasswordPolicy(UserImportRowDTO row) {
+        try {
+            passwordPolicyService.validateForRegistration(
+                    row.getPassword(), row.getFirstName(), row.getLastName(), row.getEmail());
+        } catch (PasswordPolicyViolationException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    private User toUser(UserImportRowDTO row, String passwordHash) {
+        Set<Role> roles = new HashSet<>();
+        roles.add(Role.USER);
+        if (row.getRole() != null && !row.getRole().isBlank()) {
+            roles.add(Role.valueOf(row.getRole().trim().toUpperCase(Locale.ROOT)));
+        }
+        return User.builder()
+                .email(row.getEmail())
+                .firstName(row.getFirstName())
+                .lastName(row.getLastName())
+                .password(passwordHash)
+                .roles(roles)
+                .build();
+    }
+
+    // Header row names the columns, in any order; fields may be double-quoted
+    private Iterator<UserImportRowDTO> csvRows(BufferedReader reader) {
+        List<String> header = parseCsvLine(readLine(reader));
+        return new Iterator<>() {
+            private String next = nextNonBlank();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public UserImportRowDTO next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                List<String> values = parseCsvLine(next);
+                next = nextNonBlank();
+                UserImportRowDTO row = new UserImportRowDTO();
+                for (int i = 0; i < header.size() && i < values.size(); i++) {
+                    String field = CSV_COLUMNS.get(header.get(i).trim().toLowerCase(Locale.ROOT));
+                    String value = values.get(i);
+                    if (field == null) {
+                        continue;
+                    }
+                    switch (field) {
+                        case "email" -> row.setEmail(value);
+                        case "firstName" -> row.setFirstName(value);
+                        case "lastName" -> row.setLastName(value);
+                        case "password" -> row.setPassword(value);
+                        case "role" -> row.setRole(value);
+                    }
+                }
+                return row;
+            }
+
+            private String nextNonBlank() {
+                String line;
+                do {
+                    line = readLine(reader);
+                } while (line != null && line.isBlank());
+                return line;
+            }
+        };
+    }
+
+    private static String readLine(BufferedReader reader) {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> parseCsvLine(String line) {
+        if (line == null) {
+            throw new IllegalArgumentException("CSV import is empty");
+        }
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    quoted = false;
+                } else {
+                    value.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(ch);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    // A JSON array of user objects, read one element at a time
+    private Iterator<UserImportRowDTO> jsonRows(InputStream body) {
+        try {
+            JsonParser parser = objectMapper.getFactory().createParser(body);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON import must be an array of users");
+            }
+            return new Iterator<>() {
+                private JsonToken token = parser.nextToken();
+
+                @Override
+                public boolean hasNext() {
+                    if (token == JsonToken.START_OBJECT) {
+                        return true;
+                    }
+                    if (token != JsonToken.END_ARRAY) {
+                        throw new IllegalArgumentException("JSON import must be an array of users");
+                    }
+                    return false;
+                }
+
+                @Override
+                public UserImportRowDTO next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    try {
+                        UserImportRowDTO row = objectMapper.readValue(parser, UserImportRowDTO.class);
+                        token = parser.nextToken();
+                        return row;
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException("Invalid JSON import: " + e.getMessage());
+                    }
+                }
+            };
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON import: " + e.getMessage());
+        }
+    }
+}
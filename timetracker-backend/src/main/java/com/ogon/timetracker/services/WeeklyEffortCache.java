@@ -0,0 +1,89 @@
+package com.ogon.timetracker.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ogon.timetracker.dto.TaskDTO;
+import com.ogon.timetracker.dto.TaskDayKey;
+import com.ogon.timetracker.events.TasksChangedEvent;
+import com.ogon.timetracker.events.TicketDescriptionChangedEvent;
+import com.ogon.timetracker.repositories.EffortVersionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of the weekly effort grid per (user, date range). Every task write raises
+ * the user's row in effort_versions inside its own transaction, and a ticket description
+ * change raises them all. Each entry keeps the version read before its grid was loaded
+ * and is served only while the row still holds it, so a write committed on any instance
+ * is seen by the next read everywhere, at the cost of one primary-key lookup instead of
+ * the grid query. A grid loaded while a write was in flight carries the older version and
+ * is replaced on the next read. The TTL only bounds how long unused entries stay around.
+ */
+@Component
+public class WeeklyEffortCache {
+
+    private final Cache<WeekKey, VersionedGrid> cache;
+    private final EffortVersionRepository effortVersionRepository;
+
+    public WeeklyEffortCache(EffortVersionRepository effortVersionRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.effort-cache.max-entries:5000}") long maxEntries,
+                             @Value("${app.effort-cache.ttl-minutes:60}") long ttlMinutes) {
+        this.effortVersionRepository = effortVersionRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "weeklyEffort");
+    }
+
+    public List<TaskDTO> get(Long userId, LocalDate startDate, LocalDate endDate, Supplier<List<TaskDTO>> loader) {
+        WeekKey key = new WeekKey(userId, startDate, endDate);
+        long version = effortVersionRepository.findVersion(userId).orElse(0L);
+        VersionedGrid cached = cache.getIfPresent(key);
+        if (cached != null && cached.version() == version) {
+            return cached.rows();
+        }
+
+        List<TaskDTO> loaded = List.copyOf(loader.get());
+        cache.put(key, new VersionedGrid(version, loaded));
+        return loaded;
+    }
+
+    // Runs inside the write's transaction, so the new version commits with the tasks
+    @EventListener
+    public void onTasksChanged(TasksChangedEvent event) {
+        Set<Long> userIds = event.days().stream()
+                .filter(TaskDayKey::isComplete)
+                .map(TaskDayKey::userId)
+                .collect(Collectors.toSet());
+        if (userIds.isEmpty()) {
+            return;
+        }
+        userIds.forEach(effortVersionRepository::insertIfAbsent);
+        effortVersionRepository.increment(userIds);
+    }
+
+    // Any user's grid may show the ticket, so every version moves; renames are rare
+    @EventListener
+    public void onTicketDescriptionChanged(TicketDescriptionChangedEvent event) {
+        effortVersionRepository.incrementAll();
+    }
+
+    private record WeekKey(Long userId, LocalDate startDate, LocalDate endDate) {
+    }
+
+    private record VersionedGrid(long version, List<TaskDTO> rows) {
+    }
+}
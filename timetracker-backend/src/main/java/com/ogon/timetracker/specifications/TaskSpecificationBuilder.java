@@ -0,0 +1,91 @@
+package com.ogon.timetracker.specifications;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Composable filters for task queries. Client, project and category filters compare
+ * dictionary ids, which TaskTermDictionary resolves from the requested text once, so the
+ * database compares integers on narrow indexes instead of trimmed upper-cased strings.
+ * Filters other than category only use attributes shared by tasks and
+ * task_daily_rollups, so the same builder can target either entity.
+ */
+public class TaskSpecificationBuilder {
+
+    private final List<Filter> specs = new ArrayList<>();
+
+    public static TaskSpecificationBuilder create() {
+        return new TaskSpecificationBuilder();
+    }
+
+    public TaskSpecificationBuilder user(Long userId) {
+        if (userId != null) {
+            specs.add((root, cb) -> cb.equal(root.get("userId"), userId));
+        }
+        return this;
+    }
+
+    public TaskSpecificationBuilder users(Collection<Long> userIds) {
+        if (userIds != null) {
+            specs.add((root, cb) -> root.get("userId").in(userIds));
+        }
+        return this;
+    }
+
+    // Client, project and category ids come from TaskTermDictionary; null means no filter
+    public TaskSpecificationBuilder clients(Collection<Long> clientIds) {
+        return idIn("clientId", clientIds);
+    }
+
+    public TaskSpecificationBuilder projects(Collection<Long> projectIds) {
+        return idIn("projectId", projectIds);
+    }
+
+    public TaskSpecificationBuilder categories(Collection<Long> categoryIds) {
+        return idIn("categoryId", categoryIds);
+    }
+
+    public TaskSpecificationBuilder billable(Boolean billable) {
+        if (billable != null) {
+            specs.add((root, cb) -> cb.equal(root.get("billable"), billable));
+        }
+        return this;
+    }
+
+    public TaskSpecificationBuilder workDateBetween(LocalDate start, LocalDate end) {
+        if (start != null) {
+            specs.add((root, cb) -> cb.greaterThanOrEqualTo(root.<LocalDate>get("workDate"), start));
+        }
+        if (end != null) {
+            specs.add((root, cb) -> cb.lessThanOrEqualTo(root.<LocalDate>get("workDate"), end));
+        }
+        return this;
+    }
+
+    public <T> Specification<T> build() {
+        return (root, query, cb) -> cb.and(specs.stream()
+                .map(filter -> filter.toPredicate(root, cb))
+                .toArray(Predicate[]::new));
+    }
+
+    private TaskSpecificationBuilder idIn(String attribute, Collection<Long> ids) {
+        if (ids == null) {
+            return this;
+        }
+        // No id means the value was never written, so nothing can match
+        specs.add((root, cb) -> ids.isEmpty() ? cb.disjunction() : root.get(attribute).in(ids));
+        return this;
+    }
+
+    @FunctionalInterface
+    private interface Filter {
+        Predicate toPredicate(Root<?> root, CriteriaBuilder cb);
+    }
+}
@@ -6,7 +6,9 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.List;
 
+// Immutable, so one instance can be cached and shared across requests
 public class CustomUserDetails implements UserDetails {
 
     @Getter
@@ -15,9 +17,13 @@ public class CustomUserDetails implements UserDetails {
     private final Collection<? extends GrantedAuthority> authorities;
 
     public CustomUserDetails(User user) {
-        this.id = user.getId();
-        this.username = user.getEmail();
-        this.authorities = user.getAuthorities();
+        this(user.getId(), user.getEmail(), user.getAuthorities());
+    }
+
+    public CustomUserDetails(Long id, String username, Collection<? extends GrantedAuthority> authorities) {
+        this.id = id;
+        this.username = username;
+        this.authorities = List.copyOf(authorities);
     }
 
     @Override
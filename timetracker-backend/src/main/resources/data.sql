@@ -5,4 +5,14 @@ VALUES (1, 'timetrackeradmin@ogondigital.com', 'Admin', 'User', '$2a$10$XFY45yrS
 --
 -- Insert roles for admin user
 INSERT ignore INTO user_roles (user_id, roles) VALUES (1, 'USER');
-INSERT ignore  INTO user_roles (user_id, roles) VALUES (1, 'ADMIN');
\ No newline at end of file
+INSERT ignore  INTO user_roles (user_id, roles) VALUES (1, 'ADMIN');
+
+--
+-- Keep the pooled task id sequence ahead of ids created by the old IDENTITY column
+UPDATE tasks_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM tasks));
+UPDATE tasks_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM task_cells));
+
+--
+-- Same for users and password history, whose inserts are batched by the bulk import
+UPDATE app_user_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM app_user));
+UPDATE password_history_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM password_history));
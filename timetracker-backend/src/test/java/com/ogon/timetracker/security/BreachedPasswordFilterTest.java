@@ -0,0 +1,88 @@
+package com.ogon.timetracker.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreachedPasswordFilterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void containsEveryListedPassword() throws IOException {
+        List<String> breached = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            breached.add("breached-" + i);
+        }
+        BreachedPasswordFilter filter = loaded(breached, 0.001);
+
+        assertTrue(filter.isEnabled());
+        breached.forEach(password -> assertTrue(filter.mightContain(password), password));
+    }
+
+    @Test
+    void falsePositivesStayNearTheBuildRate() throws IOException {
+        List<String> breached = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            breached.add("breached-" + i);
+        }
+        BreachedPasswordFilter filter = loaded(breached, 0.01);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("unlisted-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void isOffWithoutAFile() throws IOException {
+        BreachedPasswordFilter filter = new BreachedPasswordFilter("");
+        filter.load();
+
+        assertFalse(filter.isEnabled());
+        assertFalse(filter.mightContain("password"));
+    }
+
+    @Test
+    void rejectsAFileItDidNotBuild() throws IOException {
+        Path bogus = dir.resolve("bogus.bin");
+        Files.writeString(bogus, "this is not a bloom filter", StandardCharsets.UTF_8);
+
+        assertThrows(IllegalStateException.class, () -> new BreachedPasswordFilter(bogus.toString()).load());
+    }
+
+    @Test
+    void rejectsATruncatedFile() throws IOException {
+        Path list = dir.resolve("list.txt");
+        Files.write(list, List.of("password", "123456", "qwerty"), StandardCharsets.UTF_8);
+        Path target = dir.resolve("filter.bin");
+        BreachedPasswordFilter.build(list, target, 0.001);
+        byte[] bytes = Files.readAllBytes(target);
+        Files.write(target, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThrows(IllegalStateException.class, () -> new BreachedPasswordFilter(target.toString()).load());
+    }
+
+    private BreachedPasswordFilter loaded(List<String> passwords, double falsePositiveRate) throws IOException {
+        Path list = dir.resolve("list.txt");
+        Files.write(list, passwords, StandardCharsets.UTF_8);
+        Path target = dir.resolve("filter.bin");
+        BreachedPasswordFilter.build(list, target, falsePositiveRate);
+        BreachedPasswordFilter filter = new BreachedPasswordFilter(target.toString());
+        filter.load();
+        return filter;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ogon.timetracker.security;
+
+import com.ogon.timetracker.exceptions.LoginThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleServiceTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LoginThrottleService throttle;
+
+    @BeforeEach
+    void setUp() {
+        throttle = new LoginThrottleService(clock, meterRegistry, 16, 1000,
+                new LoginThrottleService.Limits(5, 60_000, 3),
+                new LoginThrottleService.Limits(50, 2_000, 20),
+                900_000);
+    }
+
+    @Test
+    void credentialStuffingBurstFromOneAddressIsCutOff() throws Exception {
+        AtomicInteger allowed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2000; i++) {
+            String email = "victim" + i + "@ogonconsulting.com";
+            pool.execute(() -> {
+                try {
+                    throttle.checkAllowed(email, "203.0.113.7");
+                    allowed.incrementAndGet();
+                    throttle.recordFailure(email, "203.0.113.7");
+                } catch (LoginThrottledException e) {
+                    rejected.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        // The address bucket allows its capacity, after which failures lock it out
+        assertTrue(allowed.get() <= 50, "allowed " + allowed.get());
+        assertEquals(2000, allowed.get() + rejected.get());
+        assertEquals(rejected.get(), meterRegistry.get("auth.login.throttled").tag("key", "ip").counter().count());
+
+        // A legitimate user from another address is unaffected
+        assertDoesNotThrow(() -> throttle.checkAllowed("someone@ogonconsulting.com", "198.51.100.20"));
+        // Memory stays bounded by the configured entry limit
+        assertTrue(throttle.size() <= 1000, "size " + throttle.size());
+    }
+
+    @Test
+    void distributedAttackOnOneAccountIsLimitedPerEmail() {
+        int allowed = 0;
+        for (int i = 0; i < 100; i++) {
+            try {
+                throttle.checkAllowed("ceo@ogonconsulting.com", "10.0." + (i / 256) + "." + (i % 256));
+                allowed++;
+                throttle.recordFailure("ceo@ogonconsulting.com", "10.0." + (i / 256) + "." + (i % 256));
+            } catch (LoginThrottledException e) {
+                assertTrue(e.getRetryAfterSeconds() >= 1);
+            }
+        }
+        assertEquals(4, allowed);
+        assertEquals(96, meterRegistry.get("auth.login.throttled").tag("key", "email").counter().count());
+    }
+
+    @Test
+    void lockoutDoublesAndSuccessClearsIt() {
+        String email = "user@ogonconsulting.com";
+        for (int i = 0; i < 4; i++) {
+            throttle.checkAllowed(email, "192.0.2.1");
+            throttle.recordFailure(email, "192.0.2.1");
+        }
+        LoginThrottledException first = assertThrows(LoginThrottledException.class,
+                () -> throttle.checkAllowed(email, "192.0.2.1"));
+        assertEquals(1, first.getRetryAfterSeconds());
+
+        clock.advance(61_000);
+        throttle.checkAllowed(email, "192.0.2.1");
+        throttle.recordFailure(email, "192.0.2.1");
+        LoginThrottledException second = assertThrows(LoginThrottledException.class,
+                () -> throttle.checkAllowed(email, "192.0.2.1"));
+        assertEquals(2, second.getRetryAfterSeconds());
+
+        clock.advance(61_000);
+        throttle.checkAllowed(email, "192.0.2.1");
+        throttle.recordSuccess(email);
+        throttle.recordFailure(email, "192.0.2.1");
+        assertDoesNotThrow(() -> throttle.checkAllowed(email, "192.0.2.1"));
+    }
+
+    @Test
+    void idleBucketsAreEvicted() {
+        throttle.checkAllowed("a@ogonconsulting.com", "192.0.2.1");
+        throttle.recordFailure("b@ogonconsulting.com", "192.0.2.2");
+        assertEquals(4, throttle.size());
+
+        clock.advance(120_000);
+        throttle.evictIdle();
+        assertEquals(2, throttle.size());
+
+        clock.advance(900_000);
+        throttle.evictIdle();
+        assertEquals(0, throttle.size());
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile long millis = 1_700_000_000_000L;
+
+        void advance(long ms) {
+            millis += ms;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
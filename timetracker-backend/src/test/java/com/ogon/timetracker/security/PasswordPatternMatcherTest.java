@@ -0,0 +1,66 @@
+package com.ogon.timetracker.security;
+
+import com.ogon.timetracker.security.PasswordPatternMatcher.Kind;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordPatternMatcherTest {
+
+    private final PasswordPatternMatcher fixed = PasswordPatternMatcher.compile(Map.of(
+            "password", Kind.DICTIONARY,
+            "dragon", Kind.DICTIONARY,
+            "abcd", Kind.SEQUENCE,
+            "1234", Kind.SEQUENCE));
+
+    @Test
+    void findsPatternsAnywhereInTheText() {
+        assertEquals(Kind.DICTIONARY, fixed.strongestMatch("mypassword", null));
+        assertEquals(Kind.DICTIONARY, fixed.strongestMatch("xdragonx", null));
+        assertEquals(Kind.SEQUENCE, fixed.strongestMatch("zz1234zz", null));
+        assertNull(fixed.strongestMatch("correcthorse", null));
+    }
+
+    @Test
+    void followsFailureLinksAfterAPartialMatch() {
+        // "abcabcd" fails on the second 'a' and must still find "abcd" without rescanning
+        assertEquals(Kind.SEQUENCE, fixed.strongestMatch("abcabcd", null));
+        assertEquals(Kind.DICTIONARY, fixed.strongestMatch("passpassword", null));
+    }
+
+    @Test
+    void reportsTheStrongestKindMatched() {
+        assertEquals(Kind.SEQUENCE, fixed.strongestMatch("abcdpassword", null));
+        PasswordPatternMatcher overlapping = PasswordPatternMatcher.compile(Map.of(
+                "word", Kind.SENSITIVE,
+                "password", Kind.DICTIONARY));
+        assertEquals(Kind.SENSITIVE, overlapping.strongestMatch("password", null));
+    }
+
+    @Test
+    void otherCharactersBreakAMatch() {
+        assertNull(fixed.strongestMatch("pass-word", null));
+        assertNull(fixed.strongestMatch("12.34", null));
+        assertEquals(Kind.SEQUENCE, fixed.strongestMatch("!!1234!!", null));
+    }
+
+    @Test
+    void runsUserPatternsInTheSamePass() {
+        PasswordPatternMatcher user = PasswordPatternMatcher.compile(List.of("jdoe", "ogon"), Kind.SENSITIVE);
+        assertEquals(Kind.SENSITIVE, fixed.strongestMatch("abcdjdoe", user));
+        assertEquals(Kind.SENSITIVE, fixed.strongestMatch("myogon99", user));
+        assertEquals(Kind.SEQUENCE, fixed.strongestMatch("abcd", user));
+        assertNull(fixed.strongestMatch("qwxz", user));
+    }
+
+    @Test
+    void rejectsPatternsOutsideTheAlphabet() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PasswordPatternMatcher.compile(List.of("Password"), Kind.DICTIONARY));
+        assertThrows(IllegalArgumentException.class,
+                () -> PasswordPatternMatcher.compile(List.of(""), Kind.DICTIONARY));
+    }
+}
@@ -0,0 +1,154 @@
+package com.ogon.timetracker.services;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.ogon.timetracker.entities.EmailOutboxEntity;
+import com.ogon.timetracker.enums.EmailOutboxStatus;
+import com.ogon.timetracker.repositories.EmailOutboxRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+    private final JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        dispatcher = new EmailOutboxDispatcher(repository, mailSender, mock(PlatformTransactionManager.class),
+                50, 3, 30, 120, 24);
+    }
+
+    @Test
+    void sendsClaimedBatchAndMarksItSent() throws Exception {
+        EmailOutboxEntity first = pending(1L, "first@ogonconsulting.com");
+        EmailOutboxEntity second = pending(2L, "second@ogonconsulting.com");
+        when(repository.claimDue(any(), any())).thenReturn(List.of(first, second));
+
+        assertEquals(2, dispatcher.dispatchBatch());
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(2, received.length);
+        assertEquals("Your OTP for Time Tracker", received[0].getSubject());
+        for (EmailOutboxEntity email : List.of(first, second)) {
+            assertEquals(EmailOutboxStatus.SENT, email.getStatus());
+            assertEquals(1, email.getAttempts());
+            assertNotNull(email.getSentAt());
+            assertNull(email.getLockedUntil());
+            assertEquals("", email.getBody());
+        }
+        verify(repository).saveAll(List.of(first, second));
+    }
+
+    @Test
+    void schedulesRetryWithBackoffAndFailsAfterLastAttempt() {
+        greenMail.stop();
+        EmailOutboxEntity email = pending(3L, "retry@ogonconsulting.com");
+        when(repository.claimDue(any(), any())).thenReturn(List.of(email));
+
+        Instant before = Instant.now();
+        dispatcher.dispatchBatch();
+        assertEquals(EmailOutboxStatus.PENDING, email.getStatus());
+        assertEquals(1, email.getAttempts());
+        assertFalse(email.getNextAttemptAt().isBefore(before.plusSeconds(30)));
+        assertNotNull(email.getLastError());
+
+        dispatcher.dispatchBatch();
+        assertEquals(EmailOutboxStatus.PENDING, email.getStatus());
+        assertFalse(email.getNextAttemptAt().isBefore(before.plusSeconds(60)));
+
+        dispatcher.dispatchBatch();
+        assertEquals(EmailOutboxStatus.FAILED, email.getStatus());
+        assertEquals(3, email.getAttempts());
+        assertEquals("", email.getBody());
+    }
+
+    @Test
+    void keepsBodyWhileRetryIsPending() {
+        greenMail.stop();
+        EmailOutboxEntity email = pending(4L, "pending@ogonconsulting.com");
+        when(repository.claimDue(any(), any())).thenReturn(List.of(email));
+
+        dispatcher.dispatchBatch();
+
+        assertEquals(EmailOutboxStatus.PENDING, email.getStatus());
+        assertEquals("Your Password Change OTP is: 123456", email.getBody());
+    }
+
+    @Test
+    void failsExpiredMessageWithoutSendingIt() {
+        EmailOutboxEntity expired = pending(5L, "expired@ogonconsulting.com");
+        expired.setExpiresAt(Instant.now().minusSeconds(1));
+        EmailOutboxEntity live = pending(6L, "live@ogonconsulting.com");
+        live.setExpiresAt(Instant.now().plusSeconds(600));
+        when(repository.claimDue(any(), any())).thenReturn(List.of(expired, live));
+
+        assertEquals(2, dispatcher.dispatchBatch());
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(1, received.length);
+        assertEquals(EmailOutboxStatus.FAILED, expired.getStatus());
+        assertEquals("", expired.getBody());
+        assertNotNull(expired.getLastError());
+        assertEquals(EmailOutboxStatus.SENT, live.getStatus());
+        verify(repository).saveAll(List.of(expired, live));
+    }
+
+    @Test
+    void failsInsteadOfRetryingPastExpiry() {
+        greenMail.stop();
+        EmailOutboxEntity email = pending(7L, "otp@ogonconsulting.com");
+        email.setExpiresAt(Instant.now().plusSeconds(20));
+        when(repository.claimDue(any(), any())).thenReturn(List.of(email));
+
+        dispatcher.dispatchBatch();
+
+        assertEquals(EmailOutboxStatus.FAILED, email.getStatus());
+        assertEquals(1, email.getAttempts());
+        assertEquals("", email.getBody());
+        assertTrue(email.getLastError().startsWith("Expired before it could be sent"));
+    }
+
+    @Test
+    void purgesSentAndFailedRowsOlderThanRetention() {
+        when(repository.deleteFinishedBefore(any())).thenReturn(2);
+
+        Instant before = Instant.now();
+        dispatcher.purgeFinished();
+
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(repository).deleteFinishedBefore(cutoff.capture());
+        assertFalse(cutoff.getValue().isBefore(before.minus(Duration.ofHours(24))));
+        assertFalse(cutoff.getValue().isAfter(Instant.now().minus(Duration.ofHours(24))));
+    }
+
+    private static EmailOutboxEntity pending(Long id, String recipient) {
+        return EmailOutboxEntity.builder()
+                .id(id)
+                .recipient(recipient)
+                .subject("Your OTP for Time Tracker")
+                .body("Your Password Change OTP is: 123456")
+                .status(EmailOutboxStatus.PENDING)
+                .nextAttemptAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.ogon.timetracker.services;
+
+import com.ogon.timetracker.entities.IdBlockSequenceEntity;
+import com.ogon.timetracker.exceptions.ServiceBusyException;
+import com.ogon.timetracker.repositories.IdBlockSequenceRepository;
+import com.ogon.timetracker.repositories.TaskRowRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RowIdAllocatorTest {
+
+    private final IdBlockSequenceRepository sequenceRepository = mock(IdBlockSequenceRepository.class);
+    private final IdBlockSequenceEntity sequence = new IdBlockSequenceEntity("task_row_id", 1L);
+    private RowIdAllocator allocator;
+
+    @AfterEach
+    void tearDown() {
+        if (allocator != null) {
+            allocator.shutdown();
+        }
+    }
+
+    @Test
+    void servesConsecutiveIdsAndReservesTheNextBlockAhead() {
+        when(sequenceRepository.findForUpdate(anyString())).thenReturn(Optional.of(sequence));
+        allocator = allocator(4, 1000);
+        allocator.reserveFirstBlock();
+
+        for (long expected = 1; expected <= 8; expected++) {
+            assertEquals(expected, allocator.nextRowId());
+        }
+
+        // The block after 5-8 was queued when 8 was handed out, before anyone needed it
+        verify(sequenceRepository, timeout(1000).times(3)).findForUpdate("task_row_id");
+        assertEquals(13L, sequence.getNextValue());
+    }
+
+    @Test
+    void failedReservationIsRetriedByTheNextCaller() {
+        when(sequenceRepository.findForUpdate(anyString()))
+                .thenThrow(new CannotAcquireLockException("lock wait timeout"))
+                .thenReturn(Optional.of(sequence));
+        allocator = allocator(4, 1000);
+
+        assertThrows(IllegalStateException.class, allocator::nextRowId);
+        assertEquals(1L, allocator.nextRowId());
+    }
+
+    @Test
+    void slowReservationAnswersBusyInsteadOfWaitingForever() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(sequenceRepository.findForUpdate(anyString())).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(sequence);
+        });
+        allocator = allocator(4, 50);
+
+        assertThrows(ServiceBusyException.class, allocator::nextRowId);
+        release.countDown();
+        assertEquals(1L, allocator.nextRowId());
+    }
+
+    private RowIdAllocator allocator(int blockSize, long reserveTimeoutMs) {
+        return new RowIdAllocator(sequenceRepository, mock(TaskRowRepository.class),
+                mock(PlatformTransactionManager.class), blockSize, reserveTimeoutMs);
+    }
+}